@@ -0,0 +1,109 @@
+package friday;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXMLLoader;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares creating 10k dialog boxes in code against the previous approach
+ * of loading the dialog box FXML for every message. Scores are per message.
+ * Run with: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(DialogBoxBenchmark.MESSAGES)
+public class DialogBoxBenchmark {
+    static final int MESSAGES = 10_000;
+
+    /**
+     * The DialogBox.fxml the previous implementation loaded for every message.
+     */
+    private static final byte[] DIALOG_BOX_FXML = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<?import javafx.geometry.Insets?>\n"
+            + "<?import javafx.scene.control.Label?>\n"
+            + "<?import javafx.scene.image.ImageView?>\n"
+            + "<?import javafx.scene.layout.HBox?>\n"
+            + "<fx:root alignment=\"TOP_RIGHT\" maxHeight=\"1.7976931348623157E308\""
+            + " maxWidth=\"1.7976931348623157E308\" prefWidth=\"400.0\" type=\"javafx.scene.layout.HBox\""
+            + " xmlns=\"http://javafx.com/javafx/17\" xmlns:fx=\"http://javafx.com/fxml/1\">\n"
+            + "  <children>\n"
+            + "    <Label fx:id=\"dialog\" text=\"Label\" wrapText=\"true\" minHeight=\"-Infinity\"/>\n"
+            + "    <ImageView fx:id=\"displayPicture\" fitHeight=\"99.0\" fitWidth=\"99.0\""
+            + " pickOnBounds=\"true\" preserveRatio=\"true\" />\n"
+            + "  </children>\n"
+            + "  <padding>\n"
+            + "    <Insets bottom=\"15.0\" left=\"5.0\" right=\"5.0\" top=\"15.0\" />\n"
+            + "  </padding>\n"
+            + "</fx:root>\n").getBytes(StandardCharsets.UTF_8);
+
+    private Image image;
+
+    @Setup(Level.Trial)
+    public void startToolkit() {
+        try {
+            Platform.startup(() -> { });
+        } catch (IllegalStateException e) {
+            // Already started by an earlier trial in this JVM
+        }
+        image = new Image(DialogBoxBenchmark.class.getResourceAsStream("/images/friday.png"));
+    }
+
+    @Benchmark
+    public void programmatic(Blackhole bh) {
+        for (int i = 0; i < MESSAGES; i++) {
+            String text = "message " + i;
+            bh.consume(i % 2 == 0 ? DialogBox.getUserDialog(text, image) : DialogBox.getFridayDialog(text, image));
+        }
+    }
+
+    @Benchmark
+    public void fxmlPerMessage(Blackhole bh) throws IOException {
+        for (int i = 0; i < MESSAGES; i++) {
+            bh.consume(loadFromFxml("message " + i, image, i % 2 != 0));
+        }
+    }
+
+    /**
+     * The previous DialogBox construction, kept here as the baseline.
+     */
+    private static HBox loadFromFxml(String text, Image img, boolean isFlipped) throws IOException {
+        HBox box = new HBox();
+        FXMLLoader fxmlLoader = new FXMLLoader();
+        fxmlLoader.setRoot(box);
+        fxmlLoader.load(new ByteArrayInputStream(DIALOG_BOX_FXML));
+        ((Label) fxmlLoader.getNamespace().get("dialog")).setText(text);
+        ((ImageView) fxmlLoader.getNamespace().get("displayPicture")).setImage(img);
+        if (isFlipped) {
+            ObservableList<Node> tmp = FXCollections.observableArrayList(box.getChildren());
+            Collections.reverse(tmp);
+            box.getChildren().setAll(tmp);
+            box.setAlignment(Pos.TOP_LEFT);
+        }
+        return box;
+    }
+}
@@ -0,0 +1,113 @@
+package friday;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares loading a million-line data file with the scanner-based parser
+ * against the previous readAllLines + regex split implementation.
+ * Run with: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializedTaskParserBenchmark {
+    private static final int LINES = 1_000_000;
+
+    private Path dataFile;
+
+    @Setup(Level.Trial)
+    public void createDataFile() throws IOException {
+        dataFile = Files.createTempFile("friday-bench", ".txt");
+        try (BufferedWriter bw = Files.newBufferedWriter(dataFile)) {
+            for (int i = 0; i < LINES; i++) {
+                switch (i % 3) {
+                    case 0:
+                        bw.write("T | " + (i % 2) + " | read book " + i);
+                        break;
+                    case 1:
+                        bw.write("D | 0 | submit report " + i + " | 2025-" + String.format("%02d", i % 12 + 1) + "-15");
+                        break;
+                    default:
+                        bw.write("E | 1 | team meeting " + i + " | Mon 2pm || 4pm");
+                        break;
+                }
+                bw.newLine();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDataFile() throws IOException {
+        Files.deleteIfExists(dataFile);
+    }
+
+    @Benchmark
+    public void scannerParser(Blackhole bh) throws IOException {
+        ChannelLineReader.forEachLine(dataFile, line -> bh.consume(Parser.parseSerializedTask(line)));
+    }
+
+    @Benchmark
+    public void regexParser(Blackhole bh) throws IOException {
+        for (String line : Files.readAllLines(dataFile)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty()) {
+                bh.consume(parseWithRegex(trimmed));
+            }
+        }
+    }
+
+    /**
+     * The previous implementation of Parser.parseSerializedTask, kept here as
+     * the baseline.
+     */
+    private static Task parseWithRegex(String line) {
+        String[] parts = line.split("\\s*\\|\\s*");
+        if (parts.length < 3) {
+            return null;
+        }
+        Task t;
+        switch (parts[0]) {
+            case "T":
+                t = new ToDo(parts[2]);
+                break;
+            case "D":
+                LocalDate by = null;
+                if (parts.length >= 4 && !parts[3].isBlank()) {
+                    try {
+                        by = LocalDate.parse(parts[3], DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+                    } catch (DateTimeParseException e) {
+                        return null;
+                    }
+                }
+                t = new Deadline(parts[2], by);
+                break;
+            case "E":
+                t = new Event(parts[2], parts.length >= 4 ? parts[3] : "", parts.length >= 6 ? parts[5] : "");
+                break;
+            default:
+                return null;
+        }
+        if ("1".equals(parts[1])) {
+            t.markDone();
+        }
+        return t;
+    }
+}
@@ -0,0 +1,81 @@
+package friday;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces files atomically by writing to a sibling temporary file and renaming
+ * it over the target, so readers only ever see the old or the new contents.
+ */
+public class AtomicFileWriter {
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Atomically replaces the target file with the given contents.
+     *
+     * @param target  The file to replace.
+     * @param content The new contents.
+     * @param force   Whether to force the contents and rename to disk before
+     *                returning.
+     * @throws IOException If writing or renaming fails; the target is unchanged.
+     */
+    public static void write(Path target, byte[] content, boolean force) throws IOException {
+        assert target != null : "Target file should not be null";
+        assert content != null : "Content should not be null";
+
+        Path tmp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (force) {
+                channel.force(true);
+            }
+        }
+        move(tmp, target, force);
+    }
+
+    /**
+     * Atomically renames source over target, falling back to a plain replacing
+     * move on file systems without atomic rename support.
+     *
+     * @param source The file to rename.
+     * @param target The file to replace.
+     * @param force  Whether to force the rename to disk before returning.
+     * @throws IOException If the rename fails.
+     */
+    public static void move(Path source, Path target, boolean force) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (force) {
+            forceDirectory(target.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Forces a directory entry change to disk where the platform allows it.
+     *
+     * @param dir The directory to force.
+     */
+    private static void forceDirectory(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform (e.g. Windows); the rename itself is still atomic
+        }
+    }
+}
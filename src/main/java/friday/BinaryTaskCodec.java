@@ -0,0 +1,234 @@
+package friday;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Encodes and decodes tasks in a compact binary format.
+ * File layout: magic "FRDB", a version byte, then one record per task:
+ * type byte, flags byte (bit 0: done, bit 1: has due date), length-prefixed
+ * UTF-8 description, then type-specific data (epoch-day int for deadlines,
+ * length-prefixed from and to strings for events), and finally a varint tag
+ * count followed by length-prefixed tags. Version 1 files have no tags.
+ */
+public class BinaryTaskCodec {
+    public static final String FILE_EXTENSION = ".bin";
+
+    private static final byte[] MAGIC = { 'F', 'R', 'D', 'B' };
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_TAGS = 1;
+    private static final int DONE_FLAG = 1;
+    private static final int HAS_DATE_FLAG = 1 << 1;
+    private static final int MAX_VARINT_SHIFT = 28; // the fifth byte holds the top bits of an int
+    private static final int MAX_STRING_BYTES = 1 << 20;
+
+    /**
+     * Returns whether the given file should be stored in the binary format,
+     * based on its extension.
+     *
+     * @param file The data file.
+     * @return True if the file uses the binary format.
+     */
+    public static boolean isBinaryFile(Path file) {
+        return file.getFileName().toString().endsWith(FILE_EXTENSION);
+    }
+
+    /**
+     * Writes the file header.
+     *
+     * @param out The output to write to.
+     * @throws IOException If writing fails.
+     */
+    public static void writeHeader(DataOutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    /**
+     * Writes a single task record.
+     *
+     * @param out The output to write to.
+     * @param t   The task to write.
+     * @throws IOException If writing fails.
+     */
+    public static void write(DataOutputStream out, Task t) throws IOException {
+        assert t != null : "Task to encode should not be null";
+
+        int flags = t.checkDone() ? DONE_FLAG : 0;
+        LocalDate by = t instanceof Deadline ? ((Deadline) t).getBy() : null;
+        if (by != null) {
+            flags |= HAS_DATE_FLAG;
+        }
+
+        out.writeByte(t.getType().shortName().charAt(0));
+        out.writeByte(flags);
+        writeString(out, t.getDesc());
+
+        if (by != null) {
+            out.writeInt((int) by.toEpochDay());
+        } else if (t instanceof Event) {
+            Event ev = (Event) t;
+            writeString(out, ev.getFrom() == null ? "" : ev.getFrom());
+            writeString(out, ev.getTo() == null ? "" : ev.getTo());
+        }
+
+        writeVarInt(out, t.getTags().size());
+        for (String tag : t.getTags()) {
+            writeString(out, tag);
+        }
+    }
+
+    /**
+     * Reads every task record in the source file and passes it to the consumer.
+     *
+     * @param source   The file to read.
+     * @param consumer The consumer to receive each task.
+     * @throws IOException If the file is unreadable, not in the binary format or
+     *                     corrupt.
+     */
+    public static void readAll(Path source, Consumer<Task> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(source), 64 * 1024))) {
+            boolean hasTags = readHeader(in) >= VERSION;
+            byte[] buffer = new byte[256];
+            while (true) {
+                int type = in.read();
+                if (type == -1) {
+                    break;
+                }
+                consumer.accept(readRecord(in, (char) type, hasTags, buffer));
+            }
+        }
+    }
+
+    /**
+     * Reads and validates the file header.
+     *
+     * @return The format version.
+     * @throws IOException If the header is missing or unsupported.
+     */
+    private static int readHeader(DataInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        try {
+            in.readFully(magic);
+        } catch (EOFException e) {
+            return VERSION; // empty file
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a Friday binary data file");
+            }
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION && version != VERSION_WITHOUT_TAGS) {
+            throw new IOException("Unsupported binary data version " + version);
+        }
+        return version;
+    }
+
+    /**
+     * Reads the remainder of a record whose type byte has been consumed.
+     *
+     * @return The decoded task.
+     * @throws IOException If the record is truncated or of an unknown type.
+     */
+    private static Task readRecord(DataInputStream in, char type, boolean hasTags, byte[] buffer)
+            throws IOException {
+        int flags = in.readUnsignedByte();
+        String desc = readString(in, buffer);
+
+        Task t;
+        if (type == TaskType.TODO.shortName().charAt(0)) {
+            t = new ToDo(desc);
+        } else if (type == TaskType.DEADLINE.shortName().charAt(0)) {
+            LocalDate by = (flags & HAS_DATE_FLAG) != 0 ? LocalDate.ofEpochDay(in.readInt()) : null;
+            t = new Deadline(desc, by);
+        } else if (type == TaskType.EVENT.shortName().charAt(0)) {
+            String from = readString(in, buffer);
+            String to = readString(in, buffer);
+            t = new Event(desc, from, to);
+        } else {
+            throw new IOException("Unknown task type '" + type + "' in binary data file");
+        }
+
+        if ((flags & DONE_FLAG) != 0) {
+            t.markDone();
+        }
+        if (hasTags) {
+            int tagCount = readVarInt(in);
+            for (int i = 0; i < tagCount; i++) {
+                t.addTag(readString(in, buffer));
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Writes a string as an unsigned varint byte length followed by its UTF-8
+     * bytes.
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes a non-negative int as an unsigned varint.
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an unsigned varint written by {@link #writeVarInt}.
+     *
+     * @throws IOException If the varint is longer than an int or negative.
+     */
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > MAX_VARINT_SHIFT) {
+                throw new IOException("Corrupt binary data file: varint is too long");
+            }
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        if (value < 0) {
+            throw new IOException("Corrupt binary data file: negative length " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}, reusing the buffer when it
+     * is large enough.
+     *
+     * @throws IOException If the string is truncated or its length is corrupt.
+     */
+    private static String readString(DataInputStream in, byte[] buffer) throws IOException {
+        int length = readVarInt(in);
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupt binary data file: string of " + length + " bytes");
+        }
+
+        byte[] target = length <= buffer.length ? buffer : new byte[length];
+        in.readFully(target, 0, length);
+        return new String(target, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,147 @@
+package friday;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Streams the lines of a file through a reused direct buffer, without
+ * materialising the whole file as a list of strings first.
+ * The file is read rather than memory mapped, since a mapping holds the file
+ * open on Windows until it is garbage collected, which would stop the file
+ * from being replaced by a later save.
+ */
+public class ChannelLineReader {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Receives a line along with its location within a file.
+     */
+    public interface LineRangeConsumer {
+        /**
+         * Accepts a line.
+         *
+         * @param offset The byte offset of the first non-whitespace byte.
+         * @param length The byte length of the line, trimmed.
+         * @param line   The line, trimmed.
+         */
+        void accept(long offset, int length, String line);
+    }
+
+    /**
+     * Passes every non-blank line of the file, trimmed, to the given consumer in
+     * file order. The file is read a buffer at a time so arbitrarily large files
+     * can be read with bounded memory.
+     *
+     * @param file     The file to read.
+     * @param consumer The consumer to receive each line.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void forEachLine(Path file, Consumer<String> consumer) throws IOException {
+        assert consumer != null : "Consumer should not be null";
+
+        forEachLineRange(file, (offset, length, line) -> consumer.accept(line));
+    }
+
+    /**
+     * Passes every non-blank line of the file, trimmed, and its location to
+     * the given consumer in file order.
+     *
+     * @param file     The file to read.
+     * @param consumer The consumer to receive each line location.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void forEachLineRange(Path file, LineRangeConsumer consumer) throws IOException {
+        assert consumer != null : "Consumer should not be null";
+
+        byte[][] lineBuffer = { new byte[256] };
+        scan(file, (buffer, bufferStart, from, length) -> {
+            if (length > lineBuffer[0].length) {
+                lineBuffer[0] = new byte[Math.max(length, lineBuffer[0].length * 2)];
+            }
+            buffer.get(from, lineBuffer[0], 0, length);
+            consumer.accept(bufferStart + from, length,
+                    new String(lineBuffer[0], 0, length, StandardCharsets.UTF_8));
+        });
+    }
+
+    /**
+     * Receives trimmed, non-blank lines within the buffer.
+     */
+    private interface BufferLineConsumer {
+        void accept(ByteBuffer buffer, long bufferStart, int from, int length);
+    }
+
+    /**
+     * Reads the file into the buffer, keeping any incomplete last line for
+     * the next read, and reports every trimmed, non-blank line. The buffer
+     * grows only if a single line does not fit in it.
+     */
+    private static void scan(Path file, BufferLineConsumer consumer) throws IOException {
+        assert file != null : "File should not be null";
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER_SIZE, channel.size() + 1));
+            long bufferStart = 0;
+            int scanned = 0;
+
+            while (true) {
+                boolean isEnd = channel.read(buffer) < 0;
+                int limit = buffer.position();
+
+                int lineStart = 0;
+                for (int i = scanned; i < limit; i++) {
+                    if (buffer.get(i) == '\n') {
+                        emitLine(buffer, bufferStart, lineStart, i, consumer);
+                        lineStart = i + 1;
+                    }
+                }
+
+                if (isEnd) {
+                    if (lineStart < limit) {
+                        emitLine(buffer, bufferStart, lineStart, limit, consumer);
+                    }
+                    break;
+                }
+                if (lineStart == 0 && limit == buffer.capacity()) {
+                    // A single line fills the buffer; continue it in a larger one
+                    ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                    larger.put(buffer.flip());
+                    buffer = larger;
+                } else {
+                    buffer.flip().position(lineStart);
+                    buffer.compact();
+                    bufferStart += lineStart;
+                }
+                scanned = limit - lineStart;
+            }
+        }
+    }
+
+    /**
+     * Trims the bytes in [from, to) and passes them on if they are not blank.
+     */
+    private static void emitLine(ByteBuffer buffer, long bufferStart, int from, int to,
+            BufferLineConsumer consumer) {
+        while (from < to && isWhitespace(buffer.get(from))) {
+            from++;
+        }
+        while (to > from && isWhitespace(buffer.get(to - 1))) {
+            to--;
+        }
+        if (to > from) {
+            consumer.accept(buffer, bufferStart, from, to - from);
+        }
+    }
+
+    /**
+     * Returns whether the byte is ASCII whitespace (including '\r').
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
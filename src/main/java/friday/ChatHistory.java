@@ -0,0 +1,142 @@
+package friday;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the messages shown in the chat window. The backlog is bounded so that
+ * long sessions do not hold every message in memory: once it is full, the
+ * oldest messages are dropped in chunks, after being appended to a transcript
+ * file if one is configured.
+ */
+public class ChatHistory {
+    static final int MAX_MESSAGES = 1000;
+    static final int TRIM_CHUNK = 100;
+
+    private final List<Message> messages;
+    private final Path transcriptFile;
+    private final Executor transcriptWriter;
+
+    /**
+     * Constructs a ChatHistory over the given list, which the chat window
+     * displays.
+     *
+     * @param messages         The list to keep the messages in.
+     * @param transcriptFile   The file to append dropped messages to, or null
+     *                         to discard them.
+     * @param transcriptWriter Runs the transcript writes, off the caller's thread.
+     */
+    public ChatHistory(List<Message> messages, Path transcriptFile, Executor transcriptWriter) {
+        assert messages != null : "Message list should not be null";
+        this.messages = messages;
+        this.transcriptFile = transcriptFile;
+        this.transcriptWriter = transcriptWriter;
+    }
+
+    /**
+     * Adds a message after every other message.
+     *
+     * @param message The message.
+     */
+    public void add(Message message) {
+        messages.add(message);
+        trimIfFull();
+    }
+
+    /**
+     * Adds a message right after another one, such as a reply after the
+     * command it answers. If the other message has already been dropped, the
+     * new one becomes the oldest.
+     *
+     * @param anchor  The message to add after.
+     * @param message The message.
+     */
+    public void addAfter(Message anchor, Message message) {
+        messages.add(messages.lastIndexOf(anchor) + 1, message);
+        trimIfFull();
+    }
+
+    /**
+     * Replaces a message, such as a placeholder with the real reply. If the
+     * old message has already been dropped, the new one is added at the end.
+     *
+     * @param old     The message to replace.
+     * @param message The replacement.
+     */
+    public void replace(Message old, Message message) {
+        int idx = messages.lastIndexOf(old);
+        if (idx < 0) {
+            add(message);
+            return;
+        }
+        messages.set(idx, message);
+    }
+
+    /**
+     * Returns the number of messages kept.
+     *
+     * @return The number of messages.
+     */
+    public int size() {
+        return messages.size();
+    }
+
+    /**
+     * Drops the oldest chunk of messages once the backlog is over its limit.
+     */
+    private void trimIfFull() {
+        if (messages.size() <= MAX_MESSAGES) {
+            return;
+        }
+        List<Message> oldest = messages.subList(0, TRIM_CHUNK);
+        List<Message> dropped = new ArrayList<>(oldest);
+        oldest.clear();
+        if (transcriptFile != null) {
+            transcriptWriter.execute(() -> appendToTranscript(dropped));
+        }
+    }
+
+    /**
+     * Appends messages to the transcript file, with the user's messages
+     * prefixed by "> ".
+     *
+     * @param dropped The messages, oldest first.
+     */
+    private void appendToTranscript(List<Message> dropped) {
+        try (BufferedWriter writer = Files.newBufferedWriter(transcriptFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Message message : dropped) {
+                writer.write(message.isFromUser ? "> " + message.text : message.text);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            Ui.printWarning("Could not write transcript: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A message in the chat. Messages are compared by identity, so the same
+     * text can be shown more than once.
+     */
+    public static class Message {
+        public final String text;
+        public final boolean isFromUser;
+
+        /**
+         * Constructs a Message.
+         *
+         * @param text       The text of the message.
+         * @param isFromUser Whether the user sent it, rather than Friday.
+         */
+        public Message(String text, boolean isFromUser) {
+            this.text = text;
+            this.isFromUser = isFromUser;
+        }
+    }
+}
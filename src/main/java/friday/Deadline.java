@@ -9,6 +9,7 @@ import java.time.format.DateTimeFormatter;
 public class Deadline extends Task {
     private LocalDate by;
     private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy");
+    private static final DateTimeFormatter STORAGE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     /**
      * Constructs a Deadline task with the given description and due date.
@@ -62,6 +63,6 @@ public class Deadline extends Task {
      * @return The formatted due date string.
      */
     public String getByFormatted() {
-        return by != null ? by.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) : "";
+        return by != null ? by.format(STORAGE_FORMAT) : "";
     }
 }
@@ -0,0 +1,72 @@
+package friday;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Index of deadlines by due date, from the epoch day of each date to the ids
+ * of the deadlines due on it, so date range queries only visit the deadlines
+ * in the range. Deadlines without a date are not indexed.
+ */
+class DeadlineIndex {
+    private final NavigableMap<Long, SearchIndex.Postings> byDay = new TreeMap<>();
+
+    /**
+     * Indexes a task if it is a deadline with a date.
+     *
+     * @param task The task, which must have an id.
+     */
+    void add(Task task) {
+        LocalDate by = getDate(task);
+        if (by != null) {
+            byDay.computeIfAbsent(by.toEpochDay(), k -> new SearchIndex.Postings()).add(task.getId());
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task being removed.
+     */
+    void remove(Task task) {
+        LocalDate by = getDate(task);
+        if (by == null) {
+            return;
+        }
+        SearchIndex.Postings ids = byDay.get(by.toEpochDay());
+        if (ids != null && ids.remove(task.getId()) && ids.isEmpty()) {
+            byDay.remove(by.toEpochDay());
+        }
+    }
+
+    /**
+     * Reports the ids of the deadlines due in a range of dates, in order of
+     * due date.
+     *
+     * @param from   The first date, inclusive, or null for no lower bound.
+     * @param to     The last date, inclusive, or null for no upper bound.
+     * @param action Receives the ids.
+     */
+    void forEachBetween(LocalDate from, LocalDate to, IntConsumer action) {
+        NavigableMap<Long, SearchIndex.Postings> range = byDay;
+        if (from != null) {
+            range = range.tailMap(from.toEpochDay(), true);
+        }
+        if (to != null) {
+            range = range.headMap(to.toEpochDay(), true);
+        }
+        for (Map.Entry<Long, SearchIndex.Postings> entry : range.entrySet()) {
+            entry.getValue().forEach(action);
+        }
+    }
+
+    /**
+     * Returns the due date of a task, or null if it is not a dated deadline.
+     */
+    private static LocalDate getDate(Task task) {
+        return task instanceof Deadline ? ((Deadline) task).getBy() : null;
+    }
+}
@@ -1,39 +1,41 @@
 package friday;
 
-import java.io.IOException;
-import java.util.Collections;
-
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 
 /**
  * Represents a dialog box consisting of an ImageView to represent the speaker's
  * face
  * and a label containing text from the speaker.
+ * Built in code rather than from FXML, since a dialog box is created for every
+ * message and parsing FXML each time dominated the cost.
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final double PICTURE_SIZE = 99.0;
+    private static final double PREF_WIDTH = 400.0;
+
+    private final Label dialog = new Label();
+    private final ImageView displayPicture = new ImageView();
+    private boolean isFlipped;
 
     private DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        dialog.setWrapText(true);
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
+        getChildren().setAll(dialog, displayPicture);
+
+        setAlignment(Pos.TOP_RIGHT);
+        setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        setPrefWidth(PREF_WIDTH);
+        setPadding(new Insets(15.0, 5.0, 15.0, 5.0));
 
         dialog.setText(text);
         displayPicture.setImage(img);
@@ -41,13 +43,33 @@ public class DialogBox extends HBox {
 
     /**
      * Flips the dialog box such that the ImageView is on the left and text on the
-     * right.
+     * right, or back again.
      */
     private void flip() {
-        ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-        Collections.reverse(tmp);
-        getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
+        isFlipped = !isFlipped;
+        if (isFlipped) {
+            getChildren().setAll(displayPicture, dialog);
+        } else {
+            getChildren().setAll(dialog, displayPicture);
+        }
+        setAlignment(isFlipped ? Pos.TOP_LEFT : Pos.TOP_RIGHT);
+    }
+
+    /**
+     * Shows a different message in this dialog box, so that one box can be
+     * reused for many messages.
+     *
+     * @param text       The text of the message.
+     * @param img        The picture of the speaker.
+     * @param isFromUser Whether the user sent the message, which puts the
+     *                   picture on the right.
+     */
+    void setMessage(String text, Image img, boolean isFromUser) {
+        dialog.setText(text);
+        displayPicture.setImage(img);
+        if (isFlipped == isFromUser) {
+            flip();
+        }
     }
 
     public static DialogBox getUserDialog(String text, Image img) {
@@ -1,11 +1,18 @@
 package friday;
 
+import java.time.LocalDateTime;
+
 /**
  * Represents an event task with from and to times.
+ * The times are kept as entered, and are also parsed into date-times when
+ * they are in yyyy-MM-dd or yyyy-MM-dd HHmm form so that events can be
+ * queried by time. Other times, such as "10am", are kept only as text.
  */
 public class Event extends Task {
     private String from;
     private String to;
+    private LocalDateTime start;
+    private LocalDateTime end;
 
     /**
      * Constructs an Event task with the given description, from and to times.
@@ -18,6 +25,15 @@ public class Event extends Task {
         super(desc);
         this.from = from;
         this.to = to;
+        this.start = Parser.parseEventTime(from, null, false);
+        if (start != null) {
+            this.end = to == null || to.isBlank()
+                    ? Parser.parseEventTime(from, null, true)
+                    : Parser.parseEventTime(to, start.toLocalDate(), true);
+            if (end != null && end.isBefore(start) && !Parser.hasEventDate(to)) {
+                end = end.plusDays(1); // a time-only end earlier than the start is on the next day
+            }
+        }
     }
 
     /**
@@ -66,4 +82,24 @@ public class Event extends Task {
     public String getTo() {
         return to;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the parsed start of the event.
+     *
+     * @return The start, or null if the from time is not a date or date-time.
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the parsed end of the event. An end given only as a date is the
+     * end of that day.
+     *
+     * @return The end, or null if the event has no parsed start or the to time
+     *         cannot be parsed.
+     */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+}
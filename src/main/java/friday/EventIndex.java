@@ -0,0 +1,287 @@
+package friday;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Interval tree over events with parsed start and end times, for finding the
+ * events overlapping a period in logarithmic time plus the number of results.
+ * It is an AVL tree ordered by start time (then id), where each node also
+ * records the latest end time in its subtree, so subtrees that end before
+ * the period can be skipped.
+ * Intervals are half-open, so an event ending at 12:00 does not overlap one
+ * starting at 12:00. Events without parseable times are not indexed.
+ */
+class EventIndex {
+    private Node root;
+
+    /**
+     * Indexes a task if it is an event with parsed times. Indexing a task that
+     * is already indexed has no effect.
+     *
+     * @param task The task, which must have an id.
+     */
+    void add(Task task) {
+        if (isTimed(task)) {
+            Event event = (Event) task;
+            root = insert(root, new Node(toMinutes(event.getStart()), getEndMinutes(event), task.getId()));
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task being removed.
+     */
+    void remove(Task task) {
+        if (isTimed(task)) {
+            root = delete(root, toMinutes(((Event) task).getStart()), task.getId());
+        }
+    }
+
+    /**
+     * Reports the ids of the events overlapping a period, in order of start
+     * time.
+     *
+     * @param from   The start of the period, inclusive.
+     * @param to     The end of the period, exclusive.
+     * @param action Receives the ids.
+     */
+    void forEachOverlapping(LocalDateTime from, LocalDateTime to, IntConsumer action) {
+        forEachOverlappingWhile(from, to, id -> {
+            action.accept(id);
+            return true;
+        });
+    }
+
+    /**
+     * Reports the ids of the events overlapping a period, in order of start
+     * time, until the action asks to stop.
+     *
+     * @param from   The start of the period, inclusive.
+     * @param to     The end of the period, exclusive.
+     * @param action Receives the ids, and returns false to stop.
+     * @return True if every overlapping event was reported.
+     */
+    boolean forEachOverlappingWhile(LocalDateTime from, LocalDateTime to, IntPredicate action) {
+        return forEachOverlapping(root, toMinutes(from), Math.max(toMinutes(to), toMinutes(from) + 1), action);
+    }
+
+    /**
+     * Reports the ids of the events overlapping a timed event, other than the
+     * event itself, in order of start time.
+     *
+     * @param event  The event, which must have parsed times.
+     * @param action Receives the ids.
+     */
+    void forEachOverlapping(Event event, IntConsumer action) {
+        forEachOverlappingWhile(event, id -> {
+            action.accept(id);
+            return true;
+        });
+    }
+
+    /**
+     * Reports the ids of the events overlapping a timed event, other than the
+     * event itself, in order of start time, until the action asks to stop.
+     *
+     * @param event  The event, which must have parsed times.
+     * @param action Receives the ids, and returns false to stop.
+     * @return True if every overlapping event was reported.
+     */
+    boolean forEachOverlappingWhile(Event event, IntPredicate action) {
+        assert isTimed(event) : "Event should have parsed times";
+        return forEachOverlapping(root, toMinutes(event.getStart()), getEndMinutes(event),
+                id -> id == event.getId() || action.test(id));
+    }
+
+    /**
+     * Checks whether a task is an event with parsed times.
+     *
+     * @param task The task.
+     * @return True if the task can be indexed.
+     */
+    static boolean isTimed(Task task) {
+        return task instanceof Event && ((Event) task).getStart() != null && ((Event) task).getEnd() != null;
+    }
+
+    /**
+     * Reports the overlapping events in a subtree, skipping subtrees that end
+     * before the period or start after it. Returns false if the action asked
+     * to stop.
+     */
+    private boolean forEachOverlapping(Node node, long from, long to, IntPredicate action) {
+        if (node == null || node.maxEnd <= from) {
+            return true;
+        }
+        if (!forEachOverlapping(node.left, from, to, action)) {
+            return false;
+        }
+        if (node.start >= to) {
+            return true; // this node and its right subtree start too late
+        }
+        if (node.end > from && !action.test(node.id)) {
+            return false;
+        }
+        return forEachOverlapping(node.right, from, to, action);
+    }
+
+    /**
+     * Returns the end of an event in minutes, treating events that end when
+     * they start as lasting one minute so that they can still be found.
+     */
+    private static long getEndMinutes(Event event) {
+        return Math.max(toMinutes(event.getEnd()), toMinutes(event.getStart()) + 1);
+    }
+
+    /**
+     * Converts a time to minutes since the epoch, ignoring time zones.
+     */
+    private static long toMinutes(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /**
+     * Compares an interval key with a node, by start time and then by id.
+     */
+    private static int compare(long start, int id, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Integer.compare(id, node.id);
+    }
+
+    /**
+     * Inserts a node into a subtree, returning the rebalanced subtree. The
+     * subtree is returned unchanged if it already has a node with the same key.
+     */
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        int cmp = compare(added.start, added.id, node);
+        if (cmp == 0) {
+            return node;
+        } else if (cmp < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    /**
+     * Deletes the node with the given key from a subtree, returning the
+     * rebalanced subtree.
+     */
+    private static Node delete(Node node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else if (node.left == null || node.right == null) {
+            return node.left != null ? node.left : node.right;
+        } else {
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = delete(node.right, successor.start, successor.id);
+            successor.left = node.left;
+            return rebalance(successor);
+        }
+        return rebalance(node);
+    }
+
+    /**
+     * Returns the height of a subtree, which is 0 if it is empty.
+     */
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Returns the latest end time in a subtree.
+     */
+    private static long maxEnd(Node node) {
+        return node == null ? Long.MIN_VALUE : node.maxEnd;
+    }
+
+    /**
+     * Recomputes the height and latest end time of a node from its children.
+     */
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = Math.max(node.end, Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    /**
+     * Updates a node and rotates it if its subtrees differ in height by more
+     * than one.
+     */
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    /**
+     * Rotates a subtree right, returning its new root.
+     */
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * Rotates a subtree left, returning its new root.
+     */
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * A tree node holding one event's interval in epoch minutes.
+     */
+    private static class Node {
+        private final long start;
+        private final long end;
+        private final int id;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        Node(long start, long end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+}
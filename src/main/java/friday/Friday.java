@@ -1,9 +1,15 @@
 package friday;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.IntConsumer;
 
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -21,21 +27,87 @@ public class Friday extends Application {
     private TaskList taskList = new TaskList();
     private Storage storage;
     private TagManager tagManager;
+    private boolean isFlushRequested;
 
     /**
      * The main entry point of the application.
      * Initializes storage, loads tasks, greets the user, and starts the GUI.
+     * With {@code --batch [file]}, instead runs the commands in the file (or
+     * standard input) as one batch and prints the responses.
      *
-     * @param args Command line arguments (not used).
+     * @param args Command line arguments.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args.length > 1 ? args[1] : null);
+            return;
+        }
         launch(args);
     }
 
-    @Override
-    public void start(Stage stage) {
+    /**
+     * Runs a script of commands without opening the window.
+     *
+     * @param scriptFile The script to run, or null to read standard input.
+     */
+    private static void runBatch(String scriptFile) {
+        Friday friday = new Friday();
+        friday.loadTasks();
+        try (BufferedReader in = scriptFile != null
+                ? Files.newBufferedReader(Paths.get(scriptFile))
+                : new BufferedReader(new InputStreamReader(System.in))) {
+            friday.runScript(in, Ui.newOutputWriter());
+        } catch (IOException e) {
+            Ui.printWarning("Could not read batch script: " + e.getMessage());
+        } finally {
+            friday.stop();
+        }
+    }
+
+    /**
+     * Runs each line of a script as a command, holding every change back
+     * from storage until the script ends, so the whole script is saved once.
+     * The script may still use begin, commit and rollback; a batch it leaves
+     * open is committed.
+     *
+     * Each response is written as it is produced, and flushed once complete.
+     *
+     * @param in  The script.
+     * @param out Where to write each response.
+     * @throws IOException If the script cannot be read or the output written.
+     */
+    private void runScript(BufferedReader in, Writer out) throws IOException {
+        storage.beginBatch();
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                getResponse(line, out);
+                out.write(System.lineSeparator());
+                out.flush();
+                if (line.trim().equals("bye")) {
+                    break;
+                }
+            }
+        } finally {
+            commitOpenBatch();
+            storage.endBatch();
+        }
+    }
+
+    /**
+     * Locates the data files and loads the tasks and any legacy tags.
+     */
+    private void loadTasks() {
         initStorage();
         storage.load(); // load tasks from duke.txt if present
+        if (tagManager.migrateLegacyTags(TAG_FILE, taskList) > 0) {
+            storage.save(); // persist migrated tags with their tasks
+        }
+    }
+
+    @Override
+    public void start(Stage stage) {
+        loadTasks();
 
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(Friday.class.getResource("/view/MainWindow.fxml"));
@@ -55,14 +127,109 @@ public class Friday extends Application {
         stage.show();
     }
 
+    /**
+     * Commits any open batch and flushes pending background saves when the
+     * application exits.
+     */
+    @Override
+    public void stop() {
+        if (storage != null) {
+            commitOpenBatch();
+            storage.close();
+        }
+    }
+
     /**
      * Generates a response for the given command and returns it as a string.
      * This method is called by MainWindow to get Friday's response to user input.
+     * The task list is locked while the command runs so the background saver
+     * always sees a consistent list.
      *
      * @param input The user's input command.
      * @return Friday's response as a string.
      */
     public String getResponse(String input) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            getResponse(input, sb);
+        } catch (IOException e) {
+            throw new AssertionError("Appending to a StringBuilder should not fail", e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the response for the given command to an output. Listings are
+     * written one task at a time, so they are never built up as one string.
+     * The task list is locked while the command runs; pending saves are
+     * only waited for after the lock is released, since the saver needs it.
+     *
+     * @param input The user's input command.
+     * @param out   The output to write the response to.
+     * @throws IOException If writing fails.
+     */
+    public void getResponse(String input, Appendable out) throws IOException {
+        boolean shouldFlush;
+        synchronized (taskList) {
+            String response = respond(input, out);
+            if (response != null) {
+                out.append(response);
+            }
+            shouldFlush = isFlushRequested;
+            isFlushRequested = false;
+        }
+        if (shouldFlush) {
+            storage.flush();
+        }
+    }
+
+    /**
+     * Returns the number of tasks in the list.
+     *
+     * @return The number of tasks.
+     */
+    public int getTaskCount() {
+        synchronized (taskList) {
+            return taskList.size();
+        }
+    }
+
+    /**
+     * Returns snapshots of the tasks in a window of the list, for views that
+     * only show part of it at a time and read it outside the lock.
+     *
+     * @param offset The 0-based index of the first task.
+     * @param limit  The most tasks to return.
+     * @return The rows, which are fewer than the limit at the end of the list.
+     */
+    public List<PagedTaskList.Row> getTaskRows(int offset, int limit) {
+        synchronized (taskList) {
+            return PagedTaskList.Row.of(taskList.getPage(offset, limit));
+        }
+    }
+
+    /**
+     * Returns a window of the task list, formatted as the list command would.
+     *
+     * @param offset The 0-based index of the first task to show.
+     * @param limit  The most tasks to show.
+     * @return The formatted tasks.
+     */
+    public String listTasks(int offset, int limit) {
+        synchronized (taskList) {
+            return taskList.list(offset, limit);
+        }
+    }
+
+    /**
+     * Executes the given command against the task list.
+     *
+     * @param input The user's input command.
+     * @param out   The output that listings are written to directly.
+     * @return Friday's response as a string, or null if it was written to the output.
+     * @throws IOException If writing a listing fails.
+     */
+    private String respond(String input, Appendable out) throws IOException {
         assert input != null : "Input should not be null";
         assert taskList != null : "Task list should be initialized";
         assert storage != null : "Storage should be initialized";
@@ -80,28 +247,57 @@ public class Friday extends Application {
 
             switch (parsed.command) {
                 case "bye":
+                    commitOpenBatch();
+                    isFlushRequested = true;
                     return "Bye. Hope to see you again soon!";
+                case "begin":
+                    if (taskList.isInTransaction()) {
+                        throw new FridayException("A batch is already in progress. "
+                                + "Use commit or rollback to end it.");
+                    }
+                    beginBatch();
+                    return "Started a batch. Changes will be saved together when you commit.";
+                case "commit":
+                    checkInBatch();
+                    int committed = taskList.commitTransaction();
+                    storage.endBatch();
+                    return "Committed " + committed + " changes.";
+                case "rollback":
+                    checkInBatch();
+                    int undone = taskList.rollbackTransaction();
+                    storage.discardBatch();
+                    return "Rolled back " + undone + " changes.\nNow you have " + taskList.size()
+                            + " tasks in the list.";
                 case "list":
-                    String listResult = taskList.list();
-                    assert listResult != null : "List result should not be null";
-                    return listResult;
+                    if (Parser.isQuery(parsed.arguments)) {
+                        taskList.list(Parser.parseQuery(parsed.arguments, LocalDate.now()), out);
+                        return null;
+                    }
+                    taskList.list(out);
+                    return null;
                 case "mark":
-                    int markIndex = Parser.parseIndex(parsed.arguments);
-                    assert markIndex >= 1 : "Mark index should be 1 or greater";
-                    taskList.mark(markIndex);
-                    storage.save();
+                    int[] markIndices = parseTargets(parsed.arguments);
+                    assert markIndices[0] >= 1 : "Mark index should be 1 or greater";
+                    taskList.markAll(markIndices);
+                    recordAll(markIndices, storage::recordMark);
+                    if (markIndices.length > 1) {
+                        return "Nice! I've marked " + markIndices.length + " tasks as done.";
+                    }
                     return "Nice! I've marked this task as done:\n  "
-                            + taskList.getDisplayWithTags(markIndex - 1);
+                            + taskList.getDisplayWithTags(markIndices[0] - 1);
                 case "unmark":
-                    int unmarkIndex = Parser.parseIndex(parsed.arguments);
-                    assert unmarkIndex >= 1 : "Unmark index should be 1 or greater";
-                    taskList.unmark(unmarkIndex);
-                    storage.save();
+                    int[] unmarkIndices = parseTargets(parsed.arguments);
+                    assert unmarkIndices[0] >= 1 : "Unmark index should be 1 or greater";
+                    taskList.unmarkAll(unmarkIndices);
+                    recordAll(unmarkIndices, storage::recordUnmark);
+                    if (unmarkIndices.length > 1) {
+                        return "OK, I've marked " + unmarkIndices.length + " tasks as not done yet.";
+                    }
                     return "OK, I've marked this task as not done yet:\n  "
-                            + taskList.getDisplayWithTags(unmarkIndex - 1);
+                            + taskList.getDisplayWithTags(unmarkIndices[0] - 1);
                 case "todo":
                     taskList.addTodo(parsed.arguments);
-                    storage.save();
+                    storage.recordAdd(taskList.get(taskList.size() - 1));
                     assert taskList.size() == initialTaskCount + 1
                             : "Task count should increase by 1 after adding todo";
                     return generateTaskAddedResponse();
@@ -109,7 +305,7 @@ public class Friday extends Application {
                     Parser.DeadlineArgs deadlineArgs = Parser.parseDeadlineArgs(parsed.arguments);
                     assert deadlineArgs != null : "Deadline args should not be null";
                     taskList.addDeadline(deadlineArgs.description, deadlineArgs.by);
-                    storage.save();
+                    storage.recordAdd(taskList.get(taskList.size() - 1));
                     assert taskList.size() == initialTaskCount + 1
                             : "Task count should increase by 1 after adding deadline";
                     return generateTaskAddedResponse();
@@ -117,45 +313,167 @@ public class Friday extends Application {
                     Parser.EventArgs eventArgs = Parser.parseEventArgs(parsed.arguments);
                     assert eventArgs != null : "Event args should not be null";
                     taskList.addEvent(eventArgs.description, eventArgs.from, eventArgs.to);
-                    storage.save();
+                    storage.recordAdd(taskList.get(taskList.size() - 1));
                     assert taskList.size() == initialTaskCount + 1
                             : "Task count should increase by 1 after adding event";
                     return generateTaskAddedResponse();
                 case "delete":
-                    int deleteIndex = Parser.parseIndex(parsed.arguments);
-                    assert deleteIndex >= 1 : "Delete index should be 1 or greater";
-                    Task deletedTask = taskList.get(deleteIndex - 1);
-                    assert deletedTask != null : "Task to delete should exist";
-                    taskList.delete(deleteIndex);
-                    storage.save();
-                    assert taskList.size() == initialTaskCount - 1 : "Task count should decrease by 1 after deletion";
-                    return "Noted. I've removed this task:\n  " + deletedTask.display() + "\nNow you have "
-                            + taskList.size() + " tasks in the list.";
+                    int[] deleteIndices = parseTargets(parsed.arguments);
+                    assert deleteIndices[0] >= 1 : "Delete index should be 1 or greater";
+                    List<Task> deletedTasks = taskList.deleteAll(deleteIndices);
+                    recordAll(reversed(deleteIndices), storage::recordDelete);
+                    assert taskList.size() == initialTaskCount - deleteIndices.length
+                            : "Task count should decrease by the number of tasks deleted";
+                    String deletedSummary = deleteIndices.length > 1
+                            ? "Noted. I've removed " + deleteIndices.length + " tasks."
+                            : "Noted. I've removed this task:\n  " + deletedTasks.get(0).display();
+                    return deletedSummary + "\nNow you have " + taskList.size() + " tasks in the list.";
                 case "find":
-                    String findResult = taskList.find(parsed.arguments);
-                    assert findResult != null : "Find result should not be null";
-                    return findResult;
+                    if (Parser.isQuery(parsed.arguments)) {
+                        taskList.list(Parser.parseQuery(parsed.arguments, LocalDate.now()), out);
+                        return null;
+                    }
+                    taskList.find(parsed.arguments, out);
+                    return null;
                 case "tag":
                     Parser.TagArgs tagArgs = Parser.parseTagArgs(parsed.arguments);
                     assert tagArgs != null : "Tag args should not be null";
-                    taskList.tag(tagArgs.index, tagArgs.tag);
+                    taskList.tagAll(tagArgs.indices, tagArgs.tag);
+                    recordAll(tagArgs.indices, idx -> storage.recordTag(idx, tagArgs.tag));
+                    if (tagArgs.indices.length > 1) {
+                        return "Got it! I've tagged " + tagArgs.indices.length + " tasks with #"
+                                + TagManager.normalize(tagArgs.tag) + ".";
+                    }
                     return "Got it! I've tagged this task:\n  "
-                            + taskList.getDisplayWithTags(tagArgs.index - 1);
+                            + taskList.getDisplayWithTags(tagArgs.indices[0] - 1);
                 case "untag":
                     Parser.TagArgs untagArgs = Parser.parseTagArgs(parsed.arguments);
                     assert untagArgs != null : "Untag args should not be null";
-                    taskList.untag(untagArgs.index, untagArgs.tag);
+                    int[] untagged = taskList.untagAll(untagArgs.indices, untagArgs.tag);
+                    recordAll(untagged, idx -> storage.recordUntag(idx, untagArgs.tag));
+                    if (untagArgs.indices.length > 1) {
+                        return "Got it! I've removed the tag from " + untagged.length + " tasks.";
+                    }
                     return "Got it! I've removed the tag from this task:\n  "
-                            + taskList.getDisplayWithTags(untagArgs.index - 1);
+                            + taskList.getDisplayWithTags(untagArgs.indices[0] - 1);
+                case "due":
+                    LocalDate dueDate = Parser.parseQueryDate(parsed.arguments, LocalDate.now());
+                    taskList.findDeadlines(dueDate, dueDate, false, out);
+                    return null;
+                case "overdue":
+                    taskList.findDeadlines(null, LocalDate.now().minusDays(1), true, out);
+                    return null;
+                case "between":
+                    Parser.DateRange range = Parser.parseDateRange(parsed.arguments, LocalDate.now());
+                    taskList.findDeadlines(range.from, range.to, false, out);
+                    return null;
+                case "on":
+                    Parser.TimeRange period = Parser.parseTimeRange(parsed.arguments, LocalDate.now());
+                    taskList.findEvents(period.from, period.to, out);
+                    return null;
+                case "conflicts":
+                    return parsed.arguments.isBlank()
+                            ? taskList.findConflicts()
+                            : taskList.findConflicts(Parser.parseIndex(parsed.arguments));
+                case "filter":
+                    Parser.TagFilter tagFilter = Parser.parseTagFilter(parsed.arguments);
+                    return taskList.filterByTags(tagFilter);
                 default:
                     throw new FridayException("I don't recognise that command. Try: todo, deadline, event, " +
-                            "list, mark, unmark, delete, find, tag, untag, bye");
+                            "list, mark, unmark, delete, find, filter, due, overdue, between, on, conflicts, " +
+                            "tag, untag, begin, commit, rollback, bye");
             }
         } catch (FridayException e) {
             return e.getMessage();
         }
     }
 
+    /**
+     * Starts logging changes for rollback and holding them back from storage
+     * until the batch is committed.
+     */
+    private void beginBatch() {
+        taskList.beginTransaction();
+        storage.beginBatch();
+    }
+
+    /**
+     * Checks that a batch is in progress, for commit and rollback.
+     *
+     * @throws FridayException If there is no batch to end.
+     */
+    private void checkInBatch() throws FridayException {
+        if (!taskList.isInTransaction()) {
+            throw new FridayException("There is no batch in progress. Start one with begin.");
+        }
+    }
+
+    /**
+     * Commits the batch in progress, if any, so its changes are not lost on
+     * exit.
+     */
+    private void commitOpenBatch() {
+        synchronized (taskList) {
+            if (taskList.isInTransaction()) {
+                taskList.commitTransaction();
+                storage.endBatch();
+            }
+        }
+    }
+
+    /**
+     * Resolves the tasks a bulk command applies to, given either as task
+     * numbers and ranges or as a "where" query.
+     *
+     * @param arguments The command arguments.
+     * @return The 1-based indices of the tasks, in ascending order.
+     * @throws FridayException If the arguments are malformed or the query
+     *                         matches no tasks.
+     */
+    private int[] parseTargets(String arguments) throws FridayException {
+        if (!Parser.isQuery(arguments)) {
+            return Parser.parseIndices(arguments);
+        }
+        int[] matches = taskList.findMatching(Parser.parseQuery(arguments, LocalDate.now()));
+        if (matches.length == 0) {
+            throw new FridayException("No tasks match that query.");
+        }
+        return matches;
+    }
+
+    /**
+     * Records a change to each of the given tasks as one storage batch, so a
+     * bulk command is persisted once.
+     *
+     * @param indices  The 1-based indices of the changed tasks, in the order
+     *                 the changes were applied.
+     * @param recorder Records the change to one task.
+     */
+    private void recordAll(int[] indices, IntConsumer recorder) {
+        storage.beginBatch();
+        try {
+            for (int idx : indices) {
+                recorder.accept(idx);
+            }
+        } finally {
+            storage.endBatch();
+        }
+    }
+
+    /**
+     * Returns the indices in reverse order.
+     *
+     * @param indices The indices.
+     * @return A new reversed array.
+     */
+    private static int[] reversed(int[] indices) {
+        int[] result = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            result[i] = indices[indices.length - 1 - i];
+        }
+        return result;
+    }
+
     /**
      * Generates a standardized response for when a task has been successfully
      * added.
@@ -172,6 +490,16 @@ public class Friday extends Application {
                 + "\nNow you have " + taskList.size() + " tasks in the list.";
     }
 
+    /**
+     * Returns the file older chat messages are appended to, which is only
+     * kept if the FRIDAY_TRANSCRIPT environment variable is enabled.
+     *
+     * @return The transcript file, or null if no transcript is kept.
+     */
+    public Path getTranscriptFile() {
+        return isEnvEnabled("FRIDAY_TRANSCRIPT") ? DATA_DIR.resolve("transcript.txt") : null;
+    }
+
     /**
      * Initializes the storage by locating the data directory and setting up the
      * data file.
@@ -184,12 +512,40 @@ public class Friday extends Application {
             Ui.printWarning("Could not initialise storage directory: " + e.getMessage());
         }
         DATA_FILE = DATA_DIR.resolve("duke.txt");
+        if ("binary".equalsIgnoreCase(System.getenv("FRIDAY_FORMAT"))) {
+            Path binaryFile = DATA_DIR.resolve("duke" + BinaryTaskCodec.FILE_EXTENSION);
+            if (Files.notExists(binaryFile) && Files.exists(DATA_FILE)) {
+                Storage.convert(DATA_FILE, binaryFile); // one-time migration from the text format
+            }
+            DATA_FILE = binaryFile;
+        }
         TAG_FILE = DATA_DIR.resolve("tags.txt");
         storage = new Storage(DATA_FILE, taskList);
-        tagManager = new TagManager(TAG_FILE);
+        storage.setJournaled(isEnvEnabled("FRIDAY_JOURNAL"));
+        storage.setAsync(isEnvEnabled("FRIDAY_ASYNC_SAVE"));
+        storage.setLazy(isEnvEnabled("FRIDAY_LAZY_LOAD"));
+        storage.setDeferTagSaves(isEnvEnabled("FRIDAY_DEFER_TAG_SAVES"));
+        storage.setFsyncPolicy(FsyncPolicy.parse(System.getenv("FRIDAY_FSYNC"), FsyncPolicy.BATCHED));
+        tagManager = new TagManager();
         taskList.setTagManager(tagManager);
     }
 
+    /**
+     * Returns whether the given environment variable is set to a truthy value
+     * ("true", "1" or "yes").
+     *
+     * @param name The environment variable name.
+     * @return True if the variable is enabled.
+     */
+    private static boolean isEnvEnabled(String name) {
+        String value = System.getenv(name);
+        if (value == null) {
+            return false;
+        }
+        String normalized = value.trim().toLowerCase();
+        return normalized.equals("true") || normalized.equals("1") || normalized.equals("yes");
+    }
+
     /**
      * Always resolve to the same physical directory: ip/src/main/data
      * regardless of where the program is launched from.
@@ -0,0 +1,54 @@
+package friday;
+
+/**
+ * Enumeration of policies for forcing written data to disk, trading
+ * durability against write throughput.
+ */
+public enum FsyncPolicy {
+    /** Force every write to disk before returning. */
+    ALWAYS,
+    /** Force after a batch of writes or once enough time has passed. */
+    BATCHED,
+    /** Never force; leave flushing to the operating system. */
+    NEVER;
+
+    private static final int BATCH_SIZE = 32;
+    private static final long BATCH_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Returns whether a write should be forced to disk under this policy.
+     *
+     * @param unforcedWrites    The number of writes since the last force,
+     *                          including this one.
+     * @param millisSinceForced The time since the last force.
+     * @return True if the write should be forced.
+     */
+    public boolean shouldForce(int unforcedWrites, long millisSinceForced) {
+        switch (this) {
+            case ALWAYS:
+                return true;
+            case BATCHED:
+                return unforcedWrites >= BATCH_SIZE || millisSinceForced >= BATCH_INTERVAL_MILLIS;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Parses a policy name case-insensitively.
+     *
+     * @param name         The policy name, e.g. "always".
+     * @param defaultValue The policy to use if the name is missing or unknown.
+     * @return The parsed policy.
+     */
+    public static FsyncPolicy parse(String name, FsyncPolicy defaultValue) {
+        if (name == null || name.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+}
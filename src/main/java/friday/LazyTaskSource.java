@@ -0,0 +1,106 @@
+package friday;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An offset index over the records of a text data file, from which individual
+ * tasks are decoded on demand instead of all at startup. Records that cannot
+ * be parsed are left out of the index, as the eager loader skips them, so the
+ * task numbers are the same in both modes.
+ * The file is kept open so records can be read after the data file has been
+ * atomically replaced by a later save.
+ */
+public class LazyTaskSource {
+    private final FileChannel channel;
+    private long[] offsets;
+    private int[] lengths;
+    private int count;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(256);
+
+    /**
+     * Indexes the records of the given text data file.
+     *
+     * @param dataFile The data file to index.
+     * @throws IOException If the file cannot be read.
+     */
+    public LazyTaskSource(Path dataFile) throws IOException {
+        assert !BinaryTaskCodec.isBinaryFile(dataFile) : "Lazy loading only supports the text format";
+
+        this.offsets = new long[1024];
+        this.lengths = new int[1024];
+        ChannelLineReader.forEachLineRange(dataFile, this::addRecord);
+        this.channel = FileChannel.open(dataFile, StandardOpenOption.READ);
+    }
+
+    /**
+     * Appends a record location to the index if the record can be parsed.
+     */
+    private void addRecord(long offset, int length, String line) {
+        if (Parser.parseSerializedTask(line) == null) {
+            return; // malformed; skip
+        }
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            lengths = Arrays.copyOf(lengths, count * 2);
+        }
+        offsets[count] = offset;
+        lengths[count] = length;
+        count++;
+    }
+
+    /**
+     * Returns the number of records in the file.
+     *
+     * @return The record count.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the raw bytes of a record, without the line separator.
+     *
+     * @param record The 0-based record number.
+     * @return The record bytes.
+     */
+    public synchronized byte[] readRecord(int record) {
+        assert record >= 0 && record < count : "Record number should be within bounds";
+
+        int length = lengths[record];
+        if (readBuffer.capacity() < length) {
+            readBuffer = ByteBuffer.allocate(Math.max(length, readBuffer.capacity() * 2));
+        }
+        readBuffer.clear().limit(length);
+        try {
+            long position = offsets[record];
+            while (readBuffer.hasRemaining()) {
+                if (channel.read(readBuffer, position + readBuffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            Ui.printWarning("Could not read task: " + e.getMessage());
+        }
+        return Arrays.copyOf(readBuffer.array(), readBuffer.position());
+    }
+
+    /**
+     * Decodes a record into a task. Records were checked when indexed, so
+     * this only fails if the record could not be read back, in which case
+     * whatever was read is kept as a todo.
+     *
+     * @param record The 0-based record number.
+     * @return The decoded task.
+     */
+    public Task decode(int record) {
+        String line = new String(readRecord(record), StandardCharsets.UTF_8);
+        Task t = Parser.parseSerializedTask(line);
+        return t != null ? t : new ToDo(line);
+    }
+}
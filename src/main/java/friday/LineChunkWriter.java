@@ -0,0 +1,76 @@
+package friday;
+
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * A writer that hands on its text a fixed number of lines at a time, so a
+ * long reply can be shown as a series of short messages while it is still
+ * being written, instead of as one huge message at the end.
+ */
+public class LineChunkWriter extends Writer {
+    private final int linesPerChunk;
+    private final Consumer<String> sink;
+    private final StringBuilder chunk = new StringBuilder();
+    private int lines;
+
+    /**
+     * Constructs a LineChunkWriter.
+     *
+     * @param linesPerChunk The number of lines in each chunk but the last.
+     * @param sink          Receives each chunk, without its final line break.
+     */
+    public LineChunkWriter(int linesPerChunk, Consumer<String> sink) {
+        assert linesPerChunk > 0 : "Chunks should hold at least one line";
+        this.linesPerChunk = linesPerChunk;
+        this.sink = sink;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            put(buffer[i]);
+        }
+    }
+
+    @Override
+    public void write(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            put(text.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Hands on the last chunk, if any text is left.
+     */
+    @Override
+    public void close() {
+        if (chunk.length() > 0) {
+            emit();
+        }
+    }
+
+    /**
+     * Adds a character to the chunk, handing the chunk on once it is full.
+     */
+    private void put(char c) {
+        if (c == '\n' && ++lines == linesPerChunk) {
+            emit();
+        } else {
+            chunk.append(c);
+        }
+    }
+
+    /**
+     * Hands on the text collected so far and starts a new chunk.
+     */
+    private void emit() {
+        sink.accept(chunk.toString());
+        chunk.setLength(0);
+        lines = 0;
+    }
+}
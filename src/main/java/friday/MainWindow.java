@@ -1,56 +1,245 @@
 package friday;
 
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
+import javafx.scene.Scene;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.util.Duration;
 
 /**
  * Controller for the main GUI.
+ * Commands run one at a time, in the order they were entered, on a background
+ * thread, so a slow command or save never freezes the window. A placeholder
+ * reply is shown for commands that take noticeably long.
+ * The chat is a virtualized list: only the visible messages have dialog boxes,
+ * which are reused as the list scrolls, and the messages themselves are kept
+ * in a bounded {@link ChatHistory}.
+ * Long replies are shown as a series of messages of at most
+ * {@value #REPLY_CHUNK_LINES} lines, each added as soon as it is written, so
+ * no single message grows huge.
+ * Listing a long task list only puts its first tasks in the chat and opens a
+ * {@link TaskTable} with the whole list, which is kept up to date while open.
  */
 public class MainWindow extends AnchorPane {
+    private static final Duration PENDING_DELAY = Duration.millis(300);
+    private static final String PENDING_TEXT = "...";
+    private static final int INLINE_LIST_LIMIT = 50;
+    private static final int REPLY_CHUNK_LINES = 50;
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<ChatHistory.Message> dialogList;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
 
     private Friday friday;
+    private ChatHistory history;
+    private Stage taskTableStage;
+    private TaskTable taskTable;
+    private final ObservableList<ChatHistory.Message> messages = FXCollections.observableArrayList();
+    private final ExecutorService commandRunner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "friday-commands");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private Image userImage = new Image(this.getClass().getResourceAsStream("/images/user.png"));
     private Image fridayImage = new Image(this.getClass().getResourceAsStream("/images/friday.png"));
 
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        dialogList.setItems(messages);
+        dialogList.setCellFactory(list -> new DialogCell());
     }
 
     /** Injects the Friday instance */
     public void setFriday(Friday f) {
         friday = f;
+        history = new ChatHistory(messages, f.getTranscriptFile(), commandRunner);
         // Show the greeting message when Friday is first loaded
-        dialogContainer.getChildren().add(
-                DialogBox.getFridayDialog("Hello! I'm Friday\nWhat can I do for you?", fridayImage));
+        show(null, new ChatHistory.Message("Hello! I'm Friday\nWhat can I do for you?", false));
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing
-     * Friday's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Echoes the user input in the chat and clears the input field, then
+     * runs the command in the background. Friday's reply is added below the
+     * echoed input a chunk at a time as the command writes it.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = friday.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getFridayDialog(response, fridayImage));
         userInput.clear();
+        ChatHistory.Message command = new ChatHistory.Message(input, true);
+        show(null, command);
+
+        PendingReply reply = new PendingReply(command);
+        PauseTransition delay = new PauseTransition(PENDING_DELAY);
+        delay.setOnFinished(event -> reply.showPending());
+        delay.play();
+        commandRunner.execute(() -> {
+            boolean isLongList = input.trim().equals("list") && friday.getTaskCount() > INLINE_LIST_LIMIT;
+            LineChunkWriter writer = new LineChunkWriter(REPLY_CHUNK_LINES, chunk -> Platform.runLater(() -> {
+                delay.stop();
+                reply.append(chunk);
+            }));
+            try {
+                if (isLongList) {
+                    writer.write(friday.listTasks(0, INLINE_LIST_LIMIT) + "\nThe full list is in the task table.");
+                } else {
+                    friday.getResponse(input, writer);
+                }
+                writer.close();
+            } catch (IOException | RuntimeException e) {
+                writer.close();
+                String error = "Something went wrong: " + e.getMessage();
+                Platform.runLater(() -> reply.append(error));
+            }
+            int taskCount = friday.getTaskCount();
+            Platform.runLater(() -> {
+                delay.stop();
+                reply.finish();
+                updateTaskTable(taskCount, isLongList);
+            });
+        });
+    }
+
+    /**
+     * Points the task table at the current list if it is open, opening it
+     * first if asked to. The table fetches the tasks it shows a page at a
+     * time on the command thread, so scrolling never waits for the task list.
+     *
+     * @param taskCount The number of tasks in the list.
+     * @param isOpening Whether to open the table if it is not already open.
+     */
+    private void updateTaskTable(int taskCount, boolean isOpening) {
+        if (taskTableStage == null) {
+            if (!isOpening) {
+                return;
+            }
+            taskTable = new TaskTable();
+            taskTableStage = new Stage();
+            taskTableStage.setTitle("Friday - Tasks");
+            taskTableStage.setScene(new Scene(taskTable, 600.0, 500.0));
+        } else if (!isOpening && !taskTableStage.isShowing()) {
+            return;
+        }
+
+        taskTable.setItems(new PagedTaskList(taskCount, friday::getTaskRows, commandRunner, Platform::runLater));
+        if (isOpening) {
+            taskTableStage.show();
+            taskTableStage.toFront();
+        }
+    }
+
+    /**
+     * Adds a message to the chat and scrolls to the newest message.
+     *
+     * @param anchor  The message to add it after, or null to add it at the end.
+     * @param message The message.
+     */
+    private void show(ChatHistory.Message anchor, ChatHistory.Message message) {
+        if (anchor == null) {
+            history.add(message);
+        } else {
+            history.addAfter(anchor, message);
+        }
+        dialogList.scrollTo(messages.size() - 1);
+    }
+
+    /**
+     * The reply to one command, which is placed right after the command even
+     * if other commands have been entered since. Only touched on the JavaFX
+     * application thread.
+     */
+    private class PendingReply {
+        private final ChatHistory.Message command;
+        private ChatHistory.Message placeholder;
+        private ChatHistory.Message lastChunk;
+        private boolean isDone;
+
+        PendingReply(ChatHistory.Message command) {
+            this.command = command;
+        }
+
+        /**
+         * Shows a placeholder if the command is still running.
+         */
+        void showPending() {
+            if (isDone) {
+                return;
+            }
+            placeholder = new ChatHistory.Message(PENDING_TEXT, false);
+            MainWindow.this.show(command, placeholder);
+        }
+
+        /**
+         * Shows the next chunk of Friday's reply. The first chunk takes the
+         * place of the placeholder if there is one, and each later chunk goes
+         * after the one before.
+         *
+         * @param text The chunk.
+         */
+        void append(String text) {
+            isDone = true;
+            ChatHistory.Message chunk = new ChatHistory.Message(text, false);
+            if (lastChunk != null) {
+                MainWindow.this.show(lastChunk, chunk);
+            } else if (placeholder != null) {
+                history.replace(placeholder, chunk);
+            } else {
+                MainWindow.this.show(command, chunk);
+            }
+            lastChunk = chunk;
+        }
+
+        /**
+         * Ends the reply, showing an empty one if nothing was written.
+         */
+        void finish() {
+            if (lastChunk == null) {
+                append("");
+            }
+        }
+    }
+
+    /**
+     * A list cell that shows a message in a dialog box, reusing the same
+     * dialog box for whichever message the cell is showing.
+     */
+    private class DialogCell extends ListCell<ChatHistory.Message> {
+        private DialogBox dialogBox;
+
+        DialogCell() {
+            setPrefWidth(0); // fit the list's width rather than widening it
+        }
+
+        @Override
+        protected void updateItem(ChatHistory.Message message, boolean isEmpty) {
+            super.updateItem(message, isEmpty);
+            setText(null);
+            if (isEmpty || message == null) {
+                setGraphic(null);
+                return;
+            }
+            if (dialogBox == null) {
+                dialogBox = DialogBox.getUserDialog(message.text, userImage);
+            }
+            dialogBox.setMessage(message.text, message.isFromUser ? userImage : fridayImage, message.isFromUser);
+            setGraphic(dialogBox);
+        }
     }
 }
@@ -0,0 +1,176 @@
+package friday;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * A read-only view of a task list that fetches rows a page at a time as they
+ * are accessed, so a table over a huge list only ever touches the rows being
+ * shown. The most recently used pages are kept, so scrolling back and forth
+ * does not fetch them again.
+ * Pages are fetched on a background executor and handed back on the thread
+ * that reads the view, so reading never waits on the task list. Rows whose
+ * page has not arrived yet read as null, and are reported as replaced once
+ * it does.
+ * The size is fixed when the view is created; a new view should be created
+ * whenever the list changes.
+ */
+public class PagedTaskList extends ObservableListBase<PagedTaskList.Row> {
+    static final int PAGE_SIZE = 200;
+    private static final int CACHED_PAGES = 8;
+
+    private final int size;
+    private final PageSource source;
+    private final Executor fetcher;
+    private final Executor publisher;
+    private final Set<Integer> pendingPages = new HashSet<>();
+    private final Map<Integer, List<Row>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Row>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    /**
+     * Fetches a window of rows, such as {@link Friday#getTaskRows(int, int)}.
+     */
+    public interface PageSource {
+        /**
+         * Returns the rows in a window of the list.
+         *
+         * @param offset The 0-based index of the first task.
+         * @param limit  The most rows to return.
+         * @return The rows, which may be fewer than asked for.
+         */
+        List<Row> getPage(int offset, int limit);
+    }
+
+    /**
+     * Constructs a PagedTaskList.
+     *
+     * @param size      The number of tasks in the list.
+     * @param source    Fetches the pages.
+     * @param fetcher   Runs the fetches, off the thread reading the view.
+     * @param publisher Runs code on the thread reading the view, such as
+     *                  {@code Platform::runLater}.
+     */
+    public PagedTaskList(int size, PageSource source, Executor fetcher, Executor publisher) {
+        assert size >= 0 : "Size should not be negative";
+        this.size = size;
+        this.source = source;
+        this.fetcher = fetcher;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Returns the row at an index, requesting its page if it has not been
+     * fetched.
+     *
+     * @param idx The 0-based index.
+     * @return The row, or null if its page has not arrived yet or the list
+     *         has shrunk since this view was created.
+     */
+    @Override
+    public Row get(int idx) {
+        if (idx < 0 || idx >= size) {
+            throw new IndexOutOfBoundsException("Index " + idx + " is out of bounds for size " + size);
+        }
+        int pageNumber = idx / PAGE_SIZE;
+        if (!pages.containsKey(pageNumber)) {
+            requestPage(pageNumber);
+        }
+        List<Row> page = pages.get(pageNumber);
+        int offsetInPage = idx % PAGE_SIZE;
+        return page != null && offsetInPage < page.size() ? page.get(offsetInPage) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Fetches a page in the background unless it is already being fetched.
+     */
+    private void requestPage(int pageNumber) {
+        if (!pendingPages.add(pageNumber)) {
+            return;
+        }
+        fetcher.execute(() -> {
+            List<Row> page = source.getPage(pageNumber * PAGE_SIZE, PAGE_SIZE);
+            publisher.execute(() -> publishPage(pageNumber, page));
+        });
+    }
+
+    /**
+     * Stores a fetched page and reports its rows as replaced, so views
+     * showing them redraw.
+     */
+    private void publishPage(int pageNumber, List<Row> page) {
+        pendingPages.remove(pageNumber);
+        pages.put(pageNumber, page);
+        int from = pageNumber * PAGE_SIZE;
+        int to = Math.min(from + PAGE_SIZE, size);
+        beginChange();
+        nextReplace(from, to, Collections.nCopies(to - from, null));
+        endChange();
+    }
+
+    /**
+     * An immutable snapshot of how a task is shown in the table, taken when
+     * its page is fetched so the table never reads a task that a command may
+     * be changing.
+     */
+    public static class Row {
+        public final String task;
+        public final String tags;
+
+        /**
+         * Constructs a Row from the current state of a task. The caller must
+         * hold the lock on the task's list.
+         *
+         * @param task The task.
+         */
+        public Row(Task task) {
+            this.task = task.display();
+            this.tags = formatTags(task);
+        }
+
+        /**
+         * Formats the tags of a task, each with a # prefix.
+         *
+         * @param task The task.
+         * @return The tags separated by spaces, or an empty string if there
+         *         are none.
+         */
+        private static String formatTags(Task task) {
+            StringBuilder sb = new StringBuilder();
+            for (String tag : task.getTags()) {
+                sb.append(sb.length() == 0 ? "#" : " #").append(tag);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Snapshots a page of tasks.
+         *
+         * @param tasks The tasks.
+         * @return Their rows, in the same order.
+         */
+        public static List<Row> of(List<Task> tasks) {
+            List<Row> rows = new ArrayList<>(tasks.size());
+            for (Task task : tasks) {
+                rows.add(new Row(task));
+            }
+            return rows;
+        }
+    }
+}
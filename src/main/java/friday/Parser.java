@@ -1,13 +1,21 @@
 package friday;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Provides parsing utilities for user commands and task serialization.
  */
 public class Parser {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final char FIELD_DELIMITER = '|';
+    private static final int MAX_RANGE_SIZE = 1_000_000;
 
     /**
      * Parses a user input line into command and arguments.
@@ -73,7 +81,7 @@ public class Parser {
         LocalDate by = null;
         if (!byStr.isBlank()) {
             try {
-                by = LocalDate.parse(byStr, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+                by = LocalDate.parse(byStr, DATE_FORMAT);
                 assert by != null : "Parsed date should not be null when parsing succeeds";
             } catch (DateTimeParseException e) {
                 throw new FridayException(" Invalid date format. Use yyyy-MM-dd (e.g., 2025-10-15).");
@@ -118,9 +126,152 @@ public class Parser {
             }
         }
 
+        validateEventTime(from);
+        validateEventTime(to);
+        LocalDateTime start = parseEventTime(from, null, false);
+        LocalDateTime end = start != null && hasEventDate(to) ? parseEventTime(to, start.toLocalDate(), true) : null;
+        if (end != null && (end.isBefore(start) || isBeforeDay(end, to, start))) {
+            throw new FridayException("An event cannot end before it starts.");
+        }
+
         return new EventArgs(desc, from, to);
     }
 
+    /**
+     * Checks whether an end given as a date alone is on a day before the
+     * start. Such an end is parsed as the end of its day, which is not before
+     * a start at midnight of the next day, so the days are compared instead.
+     */
+    private static boolean isBeforeDay(LocalDateTime end, String to, LocalDateTime start) {
+        return to.trim().length() == 10 && end.toLocalDate().minusDays(1).isBefore(start.toLocalDate());
+    }
+
+    /**
+     * Rejects an event time that starts with a date but cannot be parsed.
+     * Times without a date, like "10am", are accepted as plain text.
+     *
+     * @param s The event time.
+     * @throws FridayException If the time looks like a malformed date.
+     */
+    private static void validateEventTime(String s) throws FridayException {
+        if (hasEventDate(s) && parseEventTime(s, null, false) == null) {
+            throw new FridayException(" Invalid event time. Use yyyy-MM-dd or yyyy-MM-dd HHmm "
+                    + "(e.g., 2025-10-15 1400).");
+        }
+    }
+
+    /**
+     * Checks whether an event time starts with a yyyy-MM-dd style date.
+     *
+     * @param s The event time.
+     * @return True if the time has a date part.
+     */
+    static boolean hasEventDate(String s) {
+        if (s == null) {
+            return false;
+        }
+        String t = s.trim();
+        return t.length() >= 10 && t.charAt(4) == '-' && t.charAt(7) == '-' && parseDigits(t, 0, 4) >= 0;
+    }
+
+    /**
+     * Parses an event time in yyyy-MM-dd, yyyy-MM-dd HHmm or yyyy-MM-dd HH:mm
+     * form. A date alone means the start of that day, or the end of it if the
+     * time is the end of an event. A time alone is only accepted when a date
+     * to resolve it against is given.
+     *
+     * @param s        The event time.
+     * @param baseDate The date for a time given alone, or null.
+     * @param isEnd    Whether the time is the end of an event.
+     * @return The date-time, or null if the time is not in a supported form.
+     */
+    static LocalDateTime parseEventTime(String s, LocalDate baseDate, boolean isEnd) {
+        if (s == null || s.isBlank()) {
+            return null;
+        }
+        String t = s.trim();
+        if (!hasEventDate(t)) {
+            LocalTime time = baseDate == null ? null : parseTime(t);
+            return time == null ? null : baseDate.atTime(time);
+        }
+
+        LocalDate date = parseStoredDate(t.substring(0, 10));
+        if (date == null) {
+            return null;
+        }
+        String timePart = t.substring(10).trim();
+        if (timePart.isEmpty()) {
+            return isEnd ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+        }
+        LocalTime time = parseTime(timePart);
+        return time == null ? null : date.atTime(time);
+    }
+
+    /**
+     * Parses a time in HHmm or HH:mm form.
+     *
+     * @return The time, or null if it is not in either form
+     */
+    private static LocalTime parseTime(String s) {
+        int colon = s.length() == 5 && s.charAt(2) == ':' ? 1 : 0;
+        if (s.length() != 4 + colon) {
+            return null;
+        }
+        int hour = parseDigits(s, 0, 2);
+        int minute = parseDigits(s, 2 + colon, 4 + colon);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+        return LocalTime.of(hour, minute);
+    }
+
+    /**
+     * Parses the period of an "on" query: a date (the whole day), a date-time
+     * (that minute), or two of these separated by "/to". "today" can be used
+     * as a date.
+     *
+     * @param rest  The argument string after "on".
+     * @param today The current date.
+     * @return The parsed period.
+     * @throws FridayException If a time is missing or malformed, or the period
+     *                         is backwards.
+     */
+    public static TimeRange parseTimeRange(String rest, LocalDate today) throws FridayException {
+        if (rest == null || rest.isBlank()) {
+            throw new FridayException("Please provide a date or time, e.g. on 2025-10-15 1400");
+        }
+        String expanded = rest.replaceAll("(?i)\\btoday\\b", today.format(DATE_FORMAT));
+        int toIndex = expanded.indexOf("/to");
+        String fromStr = toIndex == -1 ? expanded : expanded.substring(0, toIndex);
+        String toStr = toIndex == -1 ? fromStr : expanded.substring(toIndex + 3);
+
+        LocalDateTime from = parseEventTime(fromStr, null, false);
+        if (from == null) {
+            throw new FridayException(" Invalid time. Use yyyy-MM-dd or yyyy-MM-dd HHmm (e.g., 2025-10-15 1400).");
+        }
+        LocalDateTime to = parseEventTime(toStr, from.toLocalDate(), true);
+        if (to == null) {
+            throw new FridayException(" Invalid time. Use yyyy-MM-dd or yyyy-MM-dd HHmm (e.g., 2025-10-15 1400).");
+        }
+        if (to.isBefore(from)) {
+            throw new FridayException("The period cannot end before it starts.");
+        }
+        return new TimeRange(from, to);
+    }
+
+    /**
+     * Represents a period of time, with an inclusive start and exclusive end.
+     */
+    public static class TimeRange {
+        public final LocalDateTime from;
+        public final LocalDateTime to;
+
+        public TimeRange(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
     /**
      * Parses and validates a task index from string.
      * 
@@ -148,103 +299,315 @@ public class Parser {
         }
     }
 
+    /**
+     * Parses a list of task numbers and ranges, such as "3,7,9-20".
+     *
+     * @param s The comma-separated task numbers and low-high ranges.
+     * @return The distinct task numbers (1-based), in ascending order.
+     * @throws FridayException If a number or range is malformed.
+     */
+    public static int[] parseIndices(String s) throws FridayException {
+        if (s == null || s.isBlank()) {
+            throw new FridayException("Please provide a task number.");
+        }
+
+        List<int[]> ranges = new ArrayList<>();
+        for (String part : s.split(",", -1)) {
+            int dash = part.indexOf('-', 1);
+            if (dash == -1) {
+                int idx = parseIndex(part);
+                ranges.add(new int[] {idx, idx});
+                continue;
+            }
+            int low = parseIndex(part.substring(0, dash));
+            int high = parseIndex(part.substring(dash + 1));
+            if (low > high) {
+                throw new FridayException(" Ranges should go from low to high, e.g. 3-7.");
+            }
+            if (high - low >= MAX_RANGE_SIZE) {
+                throw new FridayException(" That range is too large.");
+            }
+            ranges.add(new int[] {low, high});
+        }
+        return toSortedIndices(ranges);
+    }
+
+    /**
+     * Expands inclusive ranges into their distinct values in ascending order.
+     * Only the values in the ranges are stored, so a single large task number
+     * costs no more than a small one.
+     *
+     * @param ranges The low-high pairs, which may overlap.
+     * @return The values.
+     * @throws FridayException If the ranges cover too many values.
+     */
+    private static int[] toSortedIndices(List<int[]> ranges) throws FridayException {
+        ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+        List<int[]> merged = new ArrayList<>();
+        long count = 0;
+        for (int[] range : ranges) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1]) {
+                count += Math.max(0, range[1] - last[1]);
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                count += range[1] - range[0] + 1;
+                merged.add(range);
+            }
+        }
+        if (count > MAX_RANGE_SIZE) {
+            throw new FridayException(" That range is too large.");
+        }
+
+        int[] indices = new int[(int) count];
+        int i = 0;
+        for (int[] range : merged) {
+            for (int idx = range[0]; idx <= range[1]; idx++) {
+                indices[i++] = idx;
+                if (idx == Integer.MAX_VALUE) {
+                    break; // idx++ would wrap around
+                }
+            }
+        }
+        return indices;
+    }
+
     /**
      * Parses a serialized task string into a Task object.
+     * Format: TYPE | doneFlag | description | extra | tags, where the tags field
+     * is optional and holds space-separated #tags. Fields are located by
+     * scanning for the delimiter rather than splitting with a regex, so no
+     * intermediate array is allocated.
      * 
      * @param line The serialized task string
-     * @return The parsed Task object
+     * @return The parsed Task object, or null if the line is malformed
      */
     public static Task parseSerializedTask(String line) {
         assert line != null : "Input line should not be null";
 
-        String[] parts = line.split("\\s*\\|\\s*");
-        if (parts.length < 3) {
+        int typeEnd = line.indexOf(FIELD_DELIMITER);
+        if (typeEnd == -1) {
             return null; // malformed; skip
         }
+        int doneEnd = line.indexOf(FIELD_DELIMITER, typeEnd + 1);
+        if (doneEnd == -1) {
+            return null; // malformed; skip
+        }
+        int descEnd = fieldEnd(line, doneEnd + 1);
+        String desc = trimmedField(line, doneEnd + 1, descEnd);
+        if (desc.isEmpty() && descEnd == line.length()) {
+            return null; // missing description; skip
+        }
 
-        assert parts.length >= 3 : "Parts array should have at least 3 elements";
-
-        String type = parts[0];
-        boolean done = "1".equals(parts[1]);
-        String desc = parts[2];
+        String type = trimmedField(line, 0, typeEnd);
+        boolean done = isDoneFlag(line, typeEnd + 1, doneEnd);
 
         assert type != null : "Task type should not be null";
         assert desc != null : "Task description should not be null";
 
-        Task t = createTaskByType(type, desc, parts);
+        Task t = createTaskByType(type, desc, line, descEnd + 1);
 
         if (t != null && done) {
             t.markDone();
         }
+        if (t != null) {
+            // Events store "from || to", which spans three fields
+            int extraFields = type.equals(TaskType.EVENT.shortName()) ? 3 : 1;
+            parseSerializedTags(t, line, skipFields(line, descEnd + 1, extraFields));
+        }
 
         assert t == null || t.getDesc().equals(desc) : "Created task should have the correct description";
         return t;
     }
 
     /**
-     * Creates a task object based on the task type and parsed parts.
+     * Adds the space-separated #tags in the field starting at the given index
+     * to the task.
+     * 
+     * @param t     The task to tag
+     * @param line  The serialized task string
+     * @param start The index where the tags field begins
+     */
+    private static void parseSerializedTags(Task t, String line, int start) {
+        int end = fieldEnd(line, start);
+        int i = start;
+        while (i < end) {
+            while (i < end && (Character.isWhitespace(line.charAt(i)) || line.charAt(i) == '#')) {
+                i++;
+            }
+            int tagStart = i;
+            while (i < end && !Character.isWhitespace(line.charAt(i)) && line.charAt(i) != '#') {
+                i++;
+            }
+            if (i > tagStart) {
+                t.addTag(TagManager.normalize(line.substring(tagStart, i)));
+            }
+        }
+    }
+
+    /**
+     * Returns the index just past the given number of fields starting at start.
+     */
+    private static int skipFields(String line, int start, int count) {
+        int i = start;
+        for (int n = 0; n < count && i <= line.length(); n++) {
+            i = fieldEnd(line, i) + 1;
+        }
+        return i;
+    }
+
+    /**
+     * Creates a task object based on the task type and the remaining fields.
      * 
-     * @param type  The task type identifier
-     * @param desc  The task description
-     * @param parts The split serialized data parts
+     * @param type       The task type identifier
+     * @param desc       The task description
+     * @param line       The serialized task string
+     * @param extraStart The index where the type-specific fields begin
      * @return The created Task object or null if type is unknown
      */
-    private static Task createTaskByType(String type, String desc, String[] parts) {
+    private static Task createTaskByType(String type, String desc, String line, int extraStart) {
         switch (type) {
             case "T":
                 assert type.equals(TaskType.TODO.shortName()) : "Type should match TODO constant";
                 return new ToDo(desc);
             case "D":
                 assert type.equals(TaskType.DEADLINE.shortName()) : "Type should match DEADLINE constant";
-                return parseDeadlineTask(desc, parts);
+                return parseDeadlineTask(desc, line, extraStart);
             case "E":
                 assert type.equals(TaskType.EVENT.shortName()) : "Type should match EVENT constant";
-                return parseEventTask(desc, parts);
+                return parseEventTask(desc, line, extraStart);
             default:
                 return null; // unknown type
         }
     }
 
     /**
-     * Parses deadline-specific data from serialized parts.
+     * Parses deadline-specific data from the serialized fields.
      * 
-     * @param desc  The task description
-     * @param parts The split serialized data parts
-     * @return A Deadline task object
+     * @param desc       The task description
+     * @param line       The serialized task string
+     * @param extraStart The index where the due date field begins
+     * @return A Deadline task object, or null if the date is invalid
      */
-    private static Deadline parseDeadlineTask(String desc, String[] parts) {
+    private static Deadline parseDeadlineTask(String desc, String line, int extraStart) {
         LocalDate by = null;
-        if (parts.length >= 4 && !parts[3].isBlank()) {
-            try {
-                by = LocalDate.parse(parts[3], DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                assert by != null : "Parsed deadline date should not be null";
-            } catch (DateTimeParseException e) {
-                // Skip if date invalid
-                return null;
+        if (extraStart < line.length()) {
+            String byStr = trimmedField(line, extraStart, fieldEnd(line, extraStart));
+            if (!byStr.isEmpty()) {
+                by = parseStoredDate(byStr);
+                if (by == null) {
+                    return null; // Skip if date invalid
+                }
             }
         }
         return new Deadline(desc, by);
     }
 
     /**
-     * Parses event-specific data from serialized parts.
+     * Parses event-specific data from the serialized fields.
+     * The extra data has the form "from || to".
      * 
-     * @param desc  The task description
-     * @param parts The split serialized data parts
+     * @param desc       The task description
+     * @param line       The serialized task string
+     * @param extraStart The index where the from field begins
      * @return An Event task object
      */
-    private static Event parseEventTask(String desc, String[] parts) {
+    private static Event parseEventTask(String desc, String line, int extraStart) {
         String from = "";
         String to = "";
-        if (parts.length >= 4) {
-            from += parts[3];
-            if (parts.length >= 6) {
-                to += parts[5];
+        if (extraStart < line.length()) {
+            int fromEnd = fieldEnd(line, extraStart);
+            from = trimmedField(line, extraStart, fromEnd);
+            int toStart = fieldEnd(line, fromEnd + 1) + 1; // skip the empty field between "||"
+            if (toStart < line.length()) {
+                to = trimmedField(line, toStart, fieldEnd(line, toStart));
             }
         }
         return new Event(desc, from, to);
     }
 
+    /**
+     * Parses a stored yyyy-MM-dd date, taking a fast path for well-formed ISO
+     * dates and falling back to the formatter otherwise.
+     * 
+     * @param s The date string
+     * @return The parsed date, or null if it is invalid
+     */
+    static LocalDate parseStoredDate(String s) {
+        if (s.length() == 10 && s.charAt(4) == '-' && s.charAt(7) == '-') {
+            int year = parseDigits(s, 0, 4);
+            int month = parseDigits(s, 5, 7);
+            int day = parseDigits(s, 8, 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                try {
+                    return LocalDate.of(year, month, day);
+                } catch (java.time.DateTimeException e) {
+                    // Fall through so the formatter applies its usual resolution
+                }
+            }
+        }
+        try {
+            return LocalDate.parse(s, DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses the ASCII digits in [from, to) as a non-negative integer.
+     * 
+     * @return The value, or -1 if a non-digit is found
+     */
+    private static int parseDigits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Returns the index of the next field delimiter at or after start, or the
+     * line length if there is none.
+     */
+    private static int fieldEnd(String line, int start) {
+        if (start >= line.length()) {
+            return line.length();
+        }
+        int end = line.indexOf(FIELD_DELIMITER, start);
+        return end == -1 ? line.length() : end;
+    }
+
+    /**
+     * Returns the field in [from, to) with surrounding whitespace removed.
+     */
+    private static String trimmedField(String line, int from, int to) {
+        while (from < to && Character.isWhitespace(line.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(line.charAt(to - 1))) {
+            to--;
+        }
+        return line.substring(from, to);
+    }
+
+    /**
+     * Returns whether the field in [from, to) is exactly the done flag "1".
+     */
+    private static boolean isDoneFlag(String line, int from, int to) {
+        while (from < to && Character.isWhitespace(line.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(line.charAt(to - 1))) {
+            to--;
+        }
+        return to - from == 1 && line.charAt(from) == '1';
+    }
+
     // Inner static classes for parsed results
     /**
      * Represents a parsed command with command and arguments.
@@ -289,10 +652,10 @@ public class Parser {
 
     /**
      * Parses tag arguments from the rest string.
-     * Expected format: "index tag" (e.g., "1 fun")
+     * Expected format: "indices tag" (e.g., "1 fun" or "1-5,8 fun")
      * 
      * @param rest The arguments string (after "tag " or "untag ")
-     * @return A TagArgs object with index and tag
+     * @return A TagArgs object with indices and tag
      * @throws FridayException if parsing fails
      */
     public static TagArgs parseTagArgs(String rest) throws FridayException {
@@ -317,21 +680,457 @@ public class Parser {
             throw new FridayException("Please provide a tag.");
         }
 
-        int index = parseIndex(indexStr);
-        assert index >= 1 : "Parsed index should be 1 or greater";
+        int[] indices = parseIndices(indexStr);
+        assert indices.length > 0 && indices[0] >= 1 : "Parsed indices should be 1 or greater";
 
-        return new TagArgs(index, tagStr);
+        return new TagArgs(indices, tagStr);
+    }
+
+    /**
+     * Parses a tag filter such as "#work and not #done or #urgent".
+     * Adjacent tags are ANDed, NOT binds tightest and OR loosest. The leading #
+     * on tags is optional.
+     * 
+     * @param rest The arguments string (after "filter ")
+     * @return A TagFilter in disjunctive normal form
+     * @throws FridayException if the filter is empty or malformed
+     */
+    public static TagFilter parseTagFilter(String rest) throws FridayException {
+        if (rest == null || rest.isBlank()) {
+            throw new FridayException("Please provide tags to filter by, e.g. filter #work and not #done");
+        }
+
+        List<List<TagTerm>> groups = new ArrayList<>();
+        List<TagTerm> group = new ArrayList<>();
+        boolean isNegated = false;
+        for (String token : rest.trim().split("\\s+")) {
+            switch (token.toLowerCase()) {
+                case "and":
+                    break;
+                case "or":
+                    if (group.isEmpty() || isNegated) {
+                        throw new FridayException("'or' must come between two tags.");
+                    }
+                    groups.add(group);
+                    group = new ArrayList<>();
+                    break;
+                case "not":
+                    isNegated = !isNegated;
+                    break;
+                default:
+                    String tag = token.startsWith("#") ? token.substring(1) : token;
+                    if (tag.isEmpty()) {
+                        throw new FridayException("Tags in a filter cannot be empty.");
+                    }
+                    group.add(new TagTerm(tag, isNegated));
+                    isNegated = false;
+                    break;
+            }
+        }
+        if (group.isEmpty() || isNegated) {
+            throw new FridayException("A tag filter must end with a tag.");
+        }
+        groups.add(group);
+        return new TagFilter(groups);
+    }
+
+    /**
+     * Checks whether command arguments are a query ("where ...") rather than
+     * task numbers or keywords.
+     *
+     * @param rest The arguments string.
+     * @return True if the arguments start with "where".
+     */
+    public static boolean isQuery(String rest) {
+        String trimmed = rest == null ? "" : rest.trim();
+        return trimmed.regionMatches(true, 0, "where", 0, 5)
+                && (trimmed.length() == 5 || Character.isWhitespace(trimmed.charAt(5)));
+    }
+
+    /**
+     * Parses a query such as "where tag:ops and due<2026-11-01" into a
+     * predicate over tasks. Conditions next to each other (or joined with
+     * "and") must all hold, "or" separates alternatives, "not" negates a
+     * condition and parentheses group them. The conditions are:
+     * done, undone, todo, deadline, event, tag:NAME (or #NAME), desc:WORD,
+     * due&lt;DATE (also &lt;=, =, &gt;=, &gt;) and on:DATE, where a date is
+     * yyyy-MM-dd or "today".
+     *
+     * @param rest  The arguments string, starting with "where".
+     * @param today The current date.
+     * @return The predicate.
+     * @throws FridayException If the query is empty or malformed.
+     */
+    public static Predicate<Task> parseQuery(String rest, LocalDate today) throws FridayException {
+        assert isQuery(rest) : "Query should start with 'where'";
+
+        String conditions = rest.trim().substring(5)
+                .replaceAll("\\s*(<=|>=|<|>|=)\\s*", "$1")
+                .replaceAll("([()])", " $1 ")
+                .trim();
+        if (conditions.isEmpty()) {
+            throw new FridayException("Please add conditions after 'where', e.g. delete where done");
+        }
+        QueryParser parser = new QueryParser(conditions.split("\\s+"), today);
+        Predicate<Task> predicate = parser.parseOr();
+        if (parser.hasNext()) {
+            throw new FridayException("I don't understand '" + parser.next() + "' in that query.");
+        }
+        return predicate;
+    }
+
+    /**
+     * Recursive descent parser for the conditions of a query.
+     */
+    private static class QueryParser {
+        private final String[] tokens;
+        private final LocalDate today;
+        private int pos;
+
+        QueryParser(String[] tokens, LocalDate today) {
+            this.tokens = tokens;
+            this.today = today;
+        }
+
+        /**
+         * Returns whether any tokens are left.
+         */
+        boolean hasNext() {
+            return pos < tokens.length;
+        }
+
+        /**
+         * Returns the next token and moves past it.
+         */
+        String next() {
+            return tokens[pos++];
+        }
+
+        /**
+         * Moves past the next token if it is the given keyword.
+         */
+        private boolean accept(String keyword) {
+            if (hasNext() && tokens[pos].equalsIgnoreCase(keyword)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Parses conditions separated by "or".
+         */
+        Predicate<Task> parseOr() throws FridayException {
+            Predicate<Task> predicate = parseAnd();
+            while (accept("or")) {
+                predicate = predicate.or(parseAnd());
+            }
+            return predicate;
+        }
+
+        /**
+         * Parses conditions that must all hold, up to the next "or" or ")".
+         */
+        private Predicate<Task> parseAnd() throws FridayException {
+            Predicate<Task> predicate = parseUnary();
+            while (hasNext() && !tokens[pos].equalsIgnoreCase("or") && !tokens[pos].equals(")")) {
+                accept("and");
+                predicate = predicate.and(parseUnary());
+            }
+            return predicate;
+        }
+
+        /**
+         * Parses a condition, a negated condition or a parenthesised query.
+         */
+        private Predicate<Task> parseUnary() throws FridayException {
+            if (!hasNext()) {
+                throw new FridayException("The query ends too early.");
+            }
+            if (accept("not")) {
+                return parseUnary().negate();
+            }
+            if (accept("(")) {
+                Predicate<Task> predicate = parseOr();
+                if (!accept(")")) {
+                    throw new FridayException("The query is missing a ')'.");
+                }
+                return predicate;
+            }
+            return parseCondition(next());
+        }
+
+        /**
+         * Parses a single condition.
+         */
+        private Predicate<Task> parseCondition(String token) throws FridayException {
+            String lower = token.toLowerCase();
+            switch (lower) {
+                case "done":
+                    return Task::checkDone;
+                case "undone":
+                    return task -> !task.checkDone();
+                case "todo":
+                    return task -> task instanceof ToDo;
+                case "deadline":
+                    return task -> task instanceof Deadline;
+                case "event":
+                    return task -> task instanceof Event;
+                default:
+                    break;
+            }
+
+            if (lower.startsWith("#") || lower.startsWith("tag:")) {
+                String tag = TagManager.normalize(lower.substring(lower.startsWith("#") ? 1 : 4));
+                if (tag.isEmpty()) {
+                    throw new FridayException("Please name the tag, e.g. tag:work");
+                }
+                return task -> task.getTags().contains(tag);
+            }
+            if (lower.startsWith("desc:") && lower.length() > 5) {
+                String keyword = lower.substring(5);
+                return task -> task.getDesc().toLowerCase().contains(keyword);
+            }
+            if (lower.startsWith("on:")) {
+                LocalDate day = parseQueryDate(lower.substring(3), today);
+                LocalDateTime dayStart = day.atStartOfDay();
+                LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+                return task -> EventIndex.isTimed(task)
+                        && ((Event) task).getStart().isBefore(dayEnd)
+                        && ((Event) task).getEnd().isAfter(dayStart);
+            }
+            if (lower.startsWith("due")) {
+                return parseDueCondition(lower.substring(3));
+            }
+            throw new FridayException("I don't understand '" + token + "' in that query.");
+        }
+
+        /**
+         * Parses the comparison after "due", such as "<=2025-10-15".
+         */
+        private Predicate<Task> parseDueCondition(String comparison) throws FridayException {
+            int opLength = comparison.startsWith("<=") || comparison.startsWith(">=") ? 2 : 1;
+            if (comparison.length() <= opLength) {
+                throw new FridayException("Please compare due with a date, e.g. due<2025-10-15");
+            }
+            String op = comparison.substring(0, opLength);
+            LocalDate date = parseQueryDate(comparison.substring(opLength), today);
+            Predicate<LocalDate> test;
+            switch (op) {
+                case "<":
+                    test = by -> by.isBefore(date);
+                    break;
+                case "<=":
+                    test = by -> !by.isAfter(date);
+                    break;
+                case "=":
+                    test = by -> by.isEqual(date);
+                    break;
+                case ">=":
+                    test = by -> !by.isBefore(date);
+                    break;
+                case ">":
+                    test = by -> by.isAfter(date);
+                    break;
+                default:
+                    throw new FridayException("Please compare due with <, <=, =, >= or >.");
+            }
+            return task -> task instanceof Deadline && ((Deadline) task).getBy() != null
+                    && test.test(((Deadline) task).getBy());
+        }
+    }
+
+    /**
+     * Parses a date in a query, which is either "today" or a date in
+     * yyyy-MM-dd format.
+     *
+     * @param s     The date string.
+     * @param today The current date.
+     * @return The parsed date.
+     * @throws FridayException If the date is missing or malformed.
+     */
+    public static LocalDate parseQueryDate(String s, LocalDate today) throws FridayException {
+        if (s == null || s.isBlank()) {
+            throw new FridayException("Please provide a date (yyyy-MM-dd) or 'today'.");
+        }
+        if (s.trim().equalsIgnoreCase("today")) {
+            return today;
+        }
+        try {
+            return LocalDate.parse(s.trim(), DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new FridayException(" Invalid date format. Use yyyy-MM-dd (e.g., 2025-10-15).");
+        }
+    }
+
+    /**
+     * Parses the two dates of a between command.
+     *
+     * @param rest  The argument string after "between".
+     * @param today The current date.
+     * @return The parsed range, whose start is not after its end.
+     * @throws FridayException If there are not exactly two valid dates, or
+     *                         the range is backwards.
+     */
+    public static DateRange parseDateRange(String rest, LocalDate today) throws FridayException {
+        String[] parts = rest == null ? new String[0] : rest.trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new FridayException("Please provide two dates, e.g. between 2025-10-01 2025-10-31");
+        }
+        LocalDate from = parseQueryDate(parts[0], today);
+        LocalDate to = parseQueryDate(parts[1], today);
+        if (from.isAfter(to)) {
+            throw new FridayException("The first date must not be after the second.");
+        }
+        return new DateRange(from, to);
+    }
+
+    /**
+     * Represents an inclusive range of dates.
+     */
+    public static class DateRange {
+        public final LocalDate from;
+        public final LocalDate to;
+
+        public DateRange(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Parses the keywords of a find command. Keywords separated by spaces (or
+     * "and") must all occur in a matching description, and "or" separates
+     * alternatives, so "buy milk or bread" finds descriptions containing both
+     * "buy" and "milk", or containing "bread".
+     * A keyword ending in "*" matches words starting with it, and a keyword
+     * starting with "~" matches words spelled similarly to it.
+     *
+     * @param rest The argument string after "find".
+     * @return The parsed query, with keywords in lowercase.
+     * @throws FridayException If "or" is not between two keywords, or a
+     *                         keyword is malformed.
+     */
+    public static KeywordQuery parseKeywordQuery(String rest) throws FridayException {
+        List<List<Keyword>> groups = new ArrayList<>();
+        List<Keyword> group = new ArrayList<>();
+        String trimmed = rest == null ? "" : rest.trim();
+        if (trimmed.isEmpty()) {
+            groups.add(group);
+            return new KeywordQuery(groups);
+        }
+
+        for (String token : trimmed.toLowerCase().split("\\s+")) {
+            if (token.equals("and")) {
+                continue;
+            }
+            if (token.equals("or")) {
+                if (group.isEmpty()) {
+                    throw new FridayException("'or' must come between two keywords.");
+                }
+                groups.add(group);
+                group = new ArrayList<>();
+            } else {
+                group.add(parseKeyword(token));
+            }
+        }
+        if (group.isEmpty()) {
+            throw new FridayException("'or' must come between two keywords.");
+        }
+        groups.add(group);
+        return new KeywordQuery(groups);
+    }
+
+    /**
+     * Parses a single find keyword and its match mode.
+     *
+     * @param token The lowercase keyword, possibly with a ~ or * marker.
+     * @return The parsed keyword.
+     * @throws FridayException If the keyword is empty or has both markers.
+     */
+    private static Keyword parseKeyword(String token) throws FridayException {
+        boolean isFuzzy = token.startsWith("~");
+        boolean isPrefix = token.endsWith("*");
+        if (isFuzzy && isPrefix) {
+            throw new FridayException("A keyword can be fuzzy (~word) or a prefix (word*), but not both.");
+        }
+        String text = isFuzzy ? token.substring(1) : isPrefix ? token.substring(0, token.length() - 1) : token;
+        if (text.isEmpty()) {
+            throw new FridayException("Please put a word after ~ or before *.");
+        }
+        KeywordMode mode = isFuzzy ? KeywordMode.FUZZY : isPrefix ? KeywordMode.PREFIX : KeywordMode.SUBSTRING;
+        return new Keyword(text, mode);
+    }
+
+    /**
+     * How a find keyword is matched against descriptions.
+     */
+    public enum KeywordMode {
+        /** Matches anywhere in the description. */
+        SUBSTRING,
+        /** Matches words starting with the keyword. */
+        PREFIX,
+        /** Matches words within a small edit distance of the keyword. */
+        FUZZY
+    }
+
+    /**
+     * Represents a single keyword of a find query.
+     */
+    public static class Keyword {
+        public final String text;
+        public final KeywordMode mode;
+
+        public Keyword(String text, KeywordMode mode) {
+            this.text = text;
+            this.mode = mode;
+        }
+    }
+
+    /**
+     * Represents a parsed find query as an OR of groups of ANDed keywords.
+     */
+    public static class KeywordQuery {
+        public final List<List<Keyword>> groups;
+
+        public KeywordQuery(List<List<Keyword>> groups) {
+            this.groups = groups;
+        }
+    }
+
+    /**
+     * Represents a single, possibly negated, tag in a tag filter.
+     */
+    public static class TagTerm {
+        public final String tag;
+        public final boolean isNegated;
+
+        public TagTerm(String tag, boolean isNegated) {
+            this.tag = tag;
+            this.isNegated = isNegated;
+        }
+    }
+
+    /**
+     * Represents a parsed tag filter as an OR of groups of ANDed terms.
+     */
+    public static class TagFilter {
+        public final List<List<TagTerm>> groups;
+
+        public TagFilter(List<List<TagTerm>> groups) {
+            this.groups = groups;
+        }
     }
 
     /**
      * Represents parsed arguments for tag operations.
      */
     public static class TagArgs {
-        public final int index;
+        public final int[] indices;
         public final String tag;
 
-        public TagArgs(int index, String tag) {
-            this.index = index;
+        public TagArgs(int[] indices, String tag) {
+            this.indices = indices;
             this.tag = tag;
         }
     }
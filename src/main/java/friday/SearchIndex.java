@@ -0,0 +1,225 @@
+package friday;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Inverted index from the character trigrams of task descriptions to the ids
+ * of the tasks containing them. A keyword can only occur in a description that
+ * contains every trigram of the keyword, so intersecting the posting lists of
+ * those trigrams gives a small set of candidates to check, instead of
+ * scanning every task. Matching is case-insensitive.
+ * The words of each description are also kept in a TokenTrie for prefix and
+ * typo-tolerant lookups.
+ * Removing a task only marks its id as removed, since taking it out of every
+ * posting list would shift each list; removed ids are skipped by lookups and
+ * purged from the lists once they outnumber the live ones.
+ */
+class SearchIndex {
+    static final int GRAM_LENGTH = 3;
+    private static final int MIN_REMOVED_TO_PURGE = 1024;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final TokenTrie words = new TokenTrie();
+    private final BitSet liveIds = new BitSet();
+    private int liveCount;
+    private int removedCount;
+
+    /**
+     * Indexes the description of a task.
+     *
+     * @param id   The task id.
+     * @param text The task description.
+     */
+    void add(int id, String text) {
+        if (!liveIds.get(id)) {
+            liveIds.set(id);
+            liveCount++;
+        }
+        String lower = text.toLowerCase();
+        for (int i = 0; i + GRAM_LENGTH <= lower.length(); i++) {
+            postings.computeIfAbsent(gram(lower, i), k -> new Postings()).add(id);
+        }
+        words.add(id, text);
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param id The task id.
+     */
+    void remove(int id) {
+        if (!liveIds.get(id)) {
+            return;
+        }
+        liveIds.clear(id);
+        liveCount--;
+        removedCount++;
+        if (removedCount >= MIN_REMOVED_TO_PURGE && removedCount >= liveCount) {
+            purge();
+        }
+    }
+
+    /**
+     * Drops removed ids from every posting list.
+     */
+    private void purge() {
+        postings.values().removeIf(ids -> {
+            ids.retainAll(liveIds);
+            return ids.isEmpty();
+        });
+        words.retainAll(liveIds);
+        removedCount = 0;
+    }
+
+    /**
+     * Finds the tasks containing a word that starts with the given prefix.
+     *
+     * @param prefix   The lowercase prefix.
+     * @param consumer Receives the matching ids, as in
+     *                 {@link TokenTrie#findPrefix(String, TokenTrie.MatchConsumer)}.
+     */
+    void findPrefix(String prefix, TokenTrie.MatchConsumer consumer) {
+        words.findPrefix(prefix, skipRemoved(consumer));
+    }
+
+    /**
+     * Finds the tasks containing a word within the given edit distance of the
+     * term.
+     *
+     * @param term        The lowercase term.
+     * @param maxDistance The largest edit distance allowed.
+     * @param consumer    Receives the matching ids, as in
+     *                    {@link TokenTrie#findFuzzy(String, int, TokenTrie.MatchConsumer)}.
+     */
+    void findFuzzy(String term, int maxDistance, TokenTrie.MatchConsumer consumer) {
+        words.findFuzzy(term, maxDistance, skipRemoved(consumer));
+    }
+
+    /**
+     * Wraps a consumer so that it does not receive removed ids.
+     */
+    private TokenTrie.MatchConsumer skipRemoved(TokenTrie.MatchConsumer consumer) {
+        return (id, cost) -> {
+            if (liveIds.get(id)) {
+                consumer.accept(id, cost);
+            }
+        };
+    }
+
+    /**
+     * Returns the ids of the tasks that may contain the keyword. Every task
+     * containing the keyword is included, but the descriptions of the
+     * candidates still have to be checked.
+     *
+     * @param keyword The lowercase keyword.
+     * @return The candidate ids in ascending order, or null if the keyword is
+     *         shorter than a trigram and every task is a candidate.
+     */
+    int[] getCandidates(String keyword) {
+        if (keyword.length() < GRAM_LENGTH) {
+            return null;
+        }
+
+        Postings smallest = null;
+        for (int i = 0; i + GRAM_LENGTH <= keyword.length(); i++) {
+            Postings ids = postings.get(gram(keyword, i));
+            if (ids == null) {
+                return new int[0];
+            }
+            if (smallest == null || ids.size < smallest.size) {
+                smallest = ids;
+            }
+        }
+
+        int[] candidates = new int[smallest.size];
+        int count = 0;
+        for (int j = 0; j < smallest.size; j++) {
+            int id = smallest.ids[j];
+            if (liveIds.get(id) && containsAllGrams(keyword, id)) {
+                candidates[count++] = id;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Checks whether a task is in the posting list of every trigram of the
+     * keyword.
+     */
+    private boolean containsAllGrams(String keyword, int id) {
+        for (int i = 0; i + GRAM_LENGTH <= keyword.length(); i++) {
+            if (!postings.get(gram(keyword, i)).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Packs the trigram starting at the given position into a single key.
+     */
+    private static Long gram(String s, int start) {
+        return ((long) s.charAt(start) << 32) | ((long) s.charAt(start + 1) << 16) | s.charAt(start + 2);
+    }
+
+    /**
+     * A sorted, growable array of task ids. Ids are usually added in
+     * ascending order, so adding is normally an append.
+     */
+    static class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        void retainAll(BitSet kept) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (kept.get(ids[i])) {
+                    ids[count++] = ids[i];
+                }
+            }
+            size = count;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(ids[i]);
+            }
+        }
+    }
+}
@@ -1,16 +1,86 @@
 package friday;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.BufferedWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Handles saving and loading tasks to/from a file.
+ * In journaled mode, each mutation is appended as a single record to a journal
+ * file next to the data file, and the journal is periodically compacted back
+ * into a full snapshot.
+ * Data files ending in {@value BinaryTaskCodec#FILE_EXTENSION} are stored in the
+ * compact binary format; all others use the pipe-delimited text format.
+ * In async mode, saves are handed to a single background writer that coalesces
+ * bursts of requests into one write. The task list is used as the lock that
+ * guards both the list contents and the journal, so callers mutating the list
+ * from another thread should hold it too.
+ * Snapshots are always replaced atomically via a temporary file, and the
+ * {@link FsyncPolicy} decides how often writes are forced to disk.
+ * The encoded form of each task is cached, so a save only re-encodes the
+ * tasks the task list reports as changed and splices in the cached bytes for
+ * the rest.
+ * Tag changes can be deferred: outside journaled mode they only mark the store
+ * dirty, and are saved after a burst of changes, once the user is idle, or on
+ * flush and shutdown.
+ * Batches may be nested; nothing is written until the outermost batch ends,
+ * and a batch can instead be discarded, which drops only its own records.
  */
 public class Storage {
+    private static final int COMPACT_THRESHOLD = 1000;
+    private static final String ADD_RECORD = "+";
+    private static final String DELETE_RECORD = "-";
+    private static final String MARK_RECORD = "x";
+    private static final String UNMARK_RECORD = "o";
+    private static final String TAG_RECORD = "#+";
+    private static final String UNTAG_RECORD = "#-";
+    private static final int DEFERRED_SAVE_THRESHOLD = 100;
+    private static final long DEFERRED_SAVE_IDLE_MILLIS = 2000;
+
     private final Path dataFile;
+    private final Path journalFile;
+    private final Path compactFile;
+    private final Path rotatedJournalFile;
     private final TaskList taskList;
+    private final boolean isBinary;
+    private boolean isJournaled;
+    private boolean isLazy;
+    private FileChannel journalChannel;
+    private int journalRecords;
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.BATCHED;
+    private int unforcedWrites;
+    private long lastForcedMillis = System.currentTimeMillis();
+    private ExecutorService saver;
+    private final AtomicBoolean isSavePending = new AtomicBoolean(false);
+    private final Map<Task, byte[]> encodedTasks = new IdentityHashMap<>();
+    private ScheduledExecutorService idleSaver;
+    private ScheduledFuture<?> idleSave;
+    private int deferredChanges;
+    private StringBuilder batchRecords;
+    private int batchRecordCount;
+    private int batchUndeferrableCount;
+    private final Deque<int[]> batchMarks = new ArrayDeque<>(); // {length, count, undeferrable} at each batch
+    private boolean isSaveHeld;
+    private final Object writeLock = new Object();
+    private long snapshotsTaken; // guarded by the task list
+    private long lastSnapshotWritten; // guarded by writeLock
 
     /**
      * Constructs a Storage with the given data file and task list.
@@ -23,26 +93,199 @@ public class Storage {
         assert taskList != null : "Task list should not be null";
 
         this.dataFile = dataFile;
+        this.journalFile = dataFile.resolveSibling(dataFile.getFileName() + ".journal");
+        this.compactFile = dataFile.resolveSibling(dataFile.getFileName() + ".compact");
+        this.rotatedJournalFile = journalFile.resolveSibling(journalFile.getFileName() + ".old");
         this.taskList = taskList;
+        this.isBinary = BinaryTaskCodec.isBinaryFile(dataFile);
 
         assert this.dataFile == dataFile : "Data file should be correctly assigned";
         assert this.taskList == taskList : "Task list should be correctly assigned";
     }
 
+    /**
+     * Enables or disables journaled mode, where mutations are appended to a
+     * journal instead of rewriting the whole data file.
+     *
+     * @param isJournaled True to enable journaled mode.
+     */
+    public void setJournaled(boolean isJournaled) {
+        this.isJournaled = isJournaled;
+    }
+
+    /**
+     * Enables or disables lazy loading, where {@link #load()} only indexes the
+     * data file and tasks are decoded on first access. Only the text format
+     * supports lazy loading; binary files are always loaded eagerly.
+     *
+     * @param isLazy True to enable lazy loading.
+     */
+    public void setLazy(boolean isLazy) {
+        this.isLazy = isLazy;
+    }
+
+    /**
+     * Enables or disables deferred saving of tag changes. When enabled and not
+     * journaled, tag changes are saved after {@value #DEFERRED_SAVE_THRESHOLD}
+     * changes or {@value #DEFERRED_SAVE_IDLE_MILLIS} ms without further changes,
+     * whichever comes first, and always on {@link #flush()} and
+     * {@link #close()}.
+     *
+     * @param isDeferring True to defer tag saves.
+     */
+    public void setDeferTagSaves(boolean isDeferring) {
+        if (isDeferring && idleSaver == null) {
+            idleSaver = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "friday-idle-save");
+                t.setDaemon(true);
+                return t;
+            });
+        } else if (!isDeferring && idleSaver != null) {
+            flush();
+            idleSaver.shutdownNow();
+            idleSaver = null;
+        }
+    }
+
+    /**
+     * Sets how often writes are forced to disk.
+     *
+     * @param fsyncPolicy The fsync policy to use.
+     */
+    public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        assert fsyncPolicy != null : "Fsync policy should not be null";
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    /**
+     * Enables or disables async mode, where saves are performed by a single
+     * background writer thread instead of the caller.
+     *
+     * @param isAsync True to enable async mode.
+     */
+    public void setAsync(boolean isAsync) {
+        if (isAsync && saver == null) {
+            saver = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "friday-storage");
+                t.setDaemon(true);
+                return t;
+            });
+        } else if (!isAsync && saver != null) {
+            flush();
+            saver.shutdown();
+            saver = null;
+        }
+    }
+
     /**
      * Saves the current tasks to the data file.
+     * In journaled mode, this compacts the journal into a fresh snapshot.
+     * In async mode, this only schedules a save; requests made while one is
+     * already pending are folded into it.
      */
     public void save() {
         if (dataFile == null)
             return;
+        synchronized (taskList) {
+            if (!batchMarks.isEmpty()) {
+                isSaveHeld = true; // would capture changes that may still be discarded
+                return;
+            }
+        }
+        if (saver == null) {
+            saveNow();
+        } else if (isSavePending.compareAndSet(false, true)) {
+            saver.execute(this::saveNow);
+        }
+    }
+
+    /**
+     * Blocks until every save requested so far has been written.
+     * Must not be called while holding the task list lock, since the saves
+     * being waited for need it.
+     */
+    public void flush() {
+        assert !Thread.holdsLock(taskList) : "Flushing while holding the task list would deadlock the saver";
+        saveDeferredChanges();
+        if (saver == null) {
+            return;
+        }
+        try {
+            saver.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Ui.printWarning("Could not flush tasks: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Flushes pending saves and releases the background writer and journal.
+     * Should be called once on shutdown.
+     */
+    public void close() {
+        if (idleSaver != null) {
+            saveDeferredChanges();
+            idleSaver.shutdownNow();
+            idleSaver = null;
+        }
+        if (saver != null) {
+            flush();
+            saver.shutdown();
+            try {
+                saver.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            saver = null;
+        }
+        synchronized (taskList) {
+            try {
+                closeJournal();
+            } catch (IOException e) {
+                Ui.printWarning("Could not close journal: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Captures the task list and writes it out on the calling thread.
+     * In journaled mode, the journal is rotated at the moment of capture, so
+     * records appended while the snapshot is being written go to a fresh
+     * journal and are never lost.
+     * Saves can run on the caller, the background writer and the idle timer,
+     * so snapshots are written one at a time, and a snapshot is dropped if a
+     * newer one has already been written.
+     */
+    private void saveNow() {
+        isSavePending.set(false);
         try {
             if (Files.notExists(dataFile.getParent())) {
                 Files.createDirectories(dataFile.getParent());
             }
-            try (BufferedWriter bw = Files.newBufferedWriter(dataFile)) {
-                for (Task t : taskList.getTasks()) {
-                    bw.write(serialize(t));
-                    bw.newLine();
+            byte[] snapshot;
+            long snapshotNumber;
+            synchronized (taskList) {
+                if (!batchMarks.isEmpty()) {
+                    isSaveHeld = true;
+                    return;
+                }
+                deferredChanges = 0;
+                snapshot = encodeSnapshot();
+                snapshotNumber = ++snapshotsTaken;
+                if (isJournaled) {
+                    rotateJournal();
+                }
+            }
+            synchronized (writeLock) { // never waits on the task list, which callers may hold
+                if (snapshotNumber < lastSnapshotWritten) {
+                    return;
+                }
+                lastSnapshotWritten = snapshotNumber;
+                if (isJournaled) {
+                    compact(snapshot);
+                } else {
+                    AtomicFileWriter.write(dataFile, snapshot, shouldForce());
                 }
             }
         } catch (IOException e) {
@@ -51,29 +294,440 @@ public class Storage {
     }
 
     /**
-     * Loads tasks from the data file into the task list.
+     * Records that a task was appended to the end of the task list.
+     *
+     * @param t The task that was added.
+     */
+    public void recordAdd(Task t) {
+        assert t != null : "Added task should not be null";
+        record(ADD_RECORD + " " + serialize(t));
+    }
+
+    /**
+     * Records that the task at the given index was deleted.
+     *
+     * @param idx The 1-based index the task had before deletion.
+     */
+    public void recordDelete(int idx) {
+        record(DELETE_RECORD + " " + idx);
+    }
+
+    /**
+     * Records that the task at the given index was marked as done.
+     *
+     * @param idx The 1-based index of the task.
+     */
+    public void recordMark(int idx) {
+        record(MARK_RECORD + " " + idx);
+    }
+
+    /**
+     * Records that the task at the given index was marked as not done.
+     *
+     * @param idx The 1-based index of the task.
+     */
+    public void recordUnmark(int idx) {
+        record(UNMARK_RECORD + " " + idx);
+    }
+
+    /**
+     * Records that a tag was added to the task at the given index.
+     *
+     * @param idx The 1-based index of the task.
+     * @param tag The tag that was added.
+     */
+    public void recordTag(int idx, String tag) {
+        record(TAG_RECORD + " " + idx + " " + TagManager.normalize(tag), true);
+    }
+
+    /**
+     * Records that a tag was removed from the task at the given index.
+     *
+     * @param idx The 1-based index of the task.
+     * @param tag The tag that was removed.
+     */
+    public void recordUntag(int idx, String tag) {
+        record(UNTAG_RECORD + " " + idx + " " + TagManager.normalize(tag), true);
+    }
+
+    /**
+     * Starts collecting changes into a batch, which is persisted as a whole
+     * by {@link #endBatch()} with a single journal write or save. Saves
+     * requested during the batch are held until it ends. A batch started
+     * inside another one is persisted with the outer one.
+     */
+    public void beginBatch() {
+        synchronized (taskList) {
+            if (batchMarks.isEmpty()) {
+                batchRecords = new StringBuilder();
+                batchRecordCount = 0;
+                batchUndeferrableCount = 0;
+            }
+            batchMarks.push(new int[] {batchRecords.length(), batchRecordCount, batchUndeferrableCount});
+        }
+    }
+
+    /**
+     * Persists the changes recorded since {@link #beginBatch()}, once the
+     * outermost batch ends. When not journaled, a batch of only deferrable
+     * changes, such as tag changes, is saved as if each were recorded alone.
+     */
+    public void endBatch() {
+        String records;
+        int count;
+        boolean isSaveNeeded;
+        boolean isDeferrable;
+        synchronized (taskList) {
+            assert !batchMarks.isEmpty() : "Batch should have been started";
+            batchMarks.pop();
+            if (!batchMarks.isEmpty()) {
+                return;
+            }
+            records = batchRecords.toString();
+            count = batchRecordCount;
+            batchRecords = null;
+            isSaveNeeded = isSaveHeld || (count > 0 && !isJournaled);
+            isDeferrable = !isSaveHeld && batchUndeferrableCount == 0 && idleSaver != null;
+            isSaveHeld = false;
+        }
+        if (isSaveNeeded && isDeferrable) {
+            deferSave(count);
+        } else if (isSaveNeeded) {
+            save(); // the snapshot also covers the batched records
+        } else if (count > 0) {
+            appendToJournal(records, count);
+        }
+    }
+
+    /**
+     * Ends the innermost batch, dropping the changes recorded since it began.
+     * The caller is responsible for undoing those changes in the task list.
+     * A save held during the batch is still carried out when the outermost
+     * batch ends, since it may cover changes made before.
+     */
+    public void discardBatch() {
+        boolean isSaveNeeded;
+        synchronized (taskList) {
+            assert !batchMarks.isEmpty() : "Batch should have been started";
+            int[] mark = batchMarks.pop();
+            batchRecords.setLength(mark[0]);
+            batchRecordCount = mark[1];
+            batchUndeferrableCount = mark[2];
+            if (!batchMarks.isEmpty()) {
+                return;
+            }
+            batchRecords = null;
+            isSaveNeeded = isSaveHeld;
+            isSaveHeld = false;
+        }
+        if (isSaveNeeded) {
+            save();
+        }
+    }
+
+    /**
+     * Appends a record to the journal, or falls back to a full save when not
+     * journaled.
+     *
+     * @param record The journal record to append.
+     */
+    private void record(String record) {
+        record(record, false);
+    }
+
+    /**
+     * Appends a record to the journal, or falls back to a full (possibly
+     * deferred) save when not journaled. Records made during a batch are held
+     * until the batch ends.
+     *
+     * @param record       The journal record to append.
+     * @param isDeferrable Whether the fallback save may be deferred.
+     */
+    private void record(String record, boolean isDeferrable) {
+        synchronized (taskList) {
+            if (batchRecords != null) {
+                batchRecords.append(record).append(System.lineSeparator());
+                batchRecordCount++;
+                if (!isDeferrable) {
+                    batchUndeferrableCount++;
+                }
+                return;
+            }
+        }
+        if (!isJournaled) {
+            if (isDeferrable && idleSaver != null) {
+                deferSave(1);
+            } else {
+                save();
+            }
+            return;
+        }
+        appendToJournal(record + System.lineSeparator(), 1);
+    }
+
+    /**
+     * Appends records to the journal in a single write, compacting the
+     * journal once it grows past the threshold.
+     *
+     * @param records The records, each ending with a line separator.
+     * @param count   The number of records.
+     */
+    private void appendToJournal(String records, int count) {
+        synchronized (taskList) {
+            try {
+                if (journalChannel == null) {
+                    if (Files.notExists(dataFile.getParent())) {
+                        Files.createDirectories(dataFile.getParent());
+                    }
+                    journalChannel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    journalChannel.write(buffer);
+                }
+                if (shouldForce()) {
+                    journalChannel.force(false);
+                }
+                journalRecords += count;
+            } catch (IOException e) {
+                Ui.printWarning("Could not write to journal: " + e.getMessage());
+                return;
+            }
+            if (journalRecords >= COMPACT_THRESHOLD) {
+                journalRecords = 0;
+                save();
+            }
+        }
+    }
+
+    /**
+     * Marks the store dirty, saving immediately once enough changes have
+     * accumulated and otherwise (re)starting the idle timer.
+     *
+     * @param changes The number of changes being deferred.
+     */
+    private void deferSave(int changes) {
+        synchronized (taskList) {
+            deferredChanges += changes;
+            if (idleSave != null) {
+                idleSave.cancel(false);
+            }
+            if (deferredChanges < DEFERRED_SAVE_THRESHOLD) {
+                idleSave = idleSaver.schedule(this::saveDeferredChanges, DEFERRED_SAVE_IDLE_MILLIS,
+                        TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+        save();
+    }
+
+    /**
+     * Saves if there are deferred changes that have not been written yet.
+     */
+    private void saveDeferredChanges() {
+        synchronized (taskList) {
+            if (deferredChanges == 0) {
+                return;
+            }
+        }
+        save();
+    }
+
+    /**
+     * Moves the current journal aside so that new records start a fresh one.
+     * If an earlier compaction left a rotated journal behind, the current
+     * journal is appended to it instead so no records are dropped.
+     *
+     * @throws IOException If the journal could not be rotated.
+     */
+    private void rotateJournal() throws IOException {
+        closeJournal();
+        journalRecords = 0;
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        if (Files.exists(rotatedJournalFile)) {
+            Files.write(rotatedJournalFile, Files.readAllBytes(journalFile), StandardOpenOption.APPEND);
+            Files.delete(journalFile);
+        } else {
+            Files.move(journalFile, rotatedJournalFile);
+        }
+    }
+
+    /**
+     * Folds the rotated journal into a new snapshot.
+     * The snapshot is first written completely to a compaction file, which is
+     * only promoted after the rotated journal is removed, so a crash at any point
+     * either leaves the old snapshot and journals, or a complete compaction file
+     * that {@link #load()} finishes promoting.
+     *
+     * @param snapshot The encoded snapshot to write.
+     * @throws IOException If the snapshot could not be written.
+     */
+    private void compact(byte[] snapshot) throws IOException {
+        boolean force = shouldForce();
+        AtomicFileWriter.write(compactFile, snapshot, force);
+        Files.deleteIfExists(rotatedJournalFile);
+        AtomicFileWriter.move(compactFile, dataFile, force);
+    }
+
+    /**
+     * Counts a write against the fsync policy and returns whether it should be
+     * forced to disk.
+     *
+     * @return True if the write should be forced.
+     */
+    private synchronized boolean shouldForce() {
+        unforcedWrites++;
+        long now = System.currentTimeMillis();
+        if (!fsyncPolicy.shouldForce(unforcedWrites, now - lastForcedMillis)) {
+            return false;
+        }
+        unforcedWrites = 0;
+        lastForcedMillis = now;
+        return true;
+    }
+
+    /**
+     * Closes the journal, forcing it to disk unless the policy is NEVER.
+     *
+     * @throws IOException If the journal could not be closed.
+     */
+    private void closeJournal() throws IOException {
+        if (journalChannel != null) {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                journalChannel.force(false);
+            }
+            journalChannel.close();
+            journalChannel = null;
+        }
+    }
+
+    /**
+     * Encodes every task in the task list in the data file's format, reusing
+     * the cached encoding of tasks that have not changed since the last save.
+     * Must be called while holding the task list lock.
+     *
+     * @return The encoded file contents.
+     * @throws IOException If encoding fails.
+     */
+    private byte[] encodeSnapshot() throws IOException {
+        for (Task removed : taskList.drainRemovedTasks()) {
+            encodedTasks.remove(removed);
+        }
+        for (Task dirty : taskList.drainDirtyTasks()) {
+            encodedTasks.remove(dirty);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (isBinary) {
+            DataOutputStream out = new DataOutputStream(bytes);
+            BinaryTaskCodec.writeHeader(out);
+            out.flush();
+        }
+        ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+        byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < taskList.size(); i++) {
+            Task t = taskList.getIfMaterialised(i);
+            if (t == null) {
+                // Unchanged lazily loaded task; copy its original record
+                bytes.write(taskList.getRawRecord(i));
+                bytes.write(lineSeparator);
+                continue;
+            }
+            byte[] encoded = encodedTasks.get(t);
+            if (encoded == null) {
+                encoded = encodeTask(t, recordBuffer);
+                encodedTasks.put(t, encoded);
+            }
+            bytes.write(encoded);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encodes a single task as one record in the data file's format.
+     *
+     * @param t      The task to encode.
+     * @param buffer A scratch buffer to encode into.
+     * @return The encoded record, including the line separator for text files.
+     * @throws IOException If encoding fails.
+     */
+    private byte[] encodeTask(Task t, ByteArrayOutputStream buffer) throws IOException {
+        if (!isBinary) {
+            return (serialize(t) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        }
+        buffer.reset();
+        DataOutputStream out = new DataOutputStream(buffer);
+        BinaryTaskCodec.write(out, t);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Loads tasks from the data file into the task list, then replays any
+     * journal records written since the last snapshot.
      */
     public void load() {
-        if (dataFile == null || !Files.exists(dataFile))
+        if (dataFile == null)
+            return;
+
+        try {
+            recoverCompaction();
+        } catch (IOException e) {
+            Ui.printWarning("Could not recover interrupted save: " + e.getMessage());
+        }
+
+        if (Files.exists(dataFile)) {
+            loadSnapshot();
+        }
+        if (Files.exists(rotatedJournalFile)) {
+            replayJournal(rotatedJournalFile);
+        }
+        if (Files.exists(journalFile)) {
+            replayJournal(journalFile);
+        }
+    }
+
+    /**
+     * Promotes a compaction file left behind by an interrupted compaction.
+     * The compaction file already contains every change in the rotated journal,
+     * while the current journal only holds later changes.
+     *
+     * @throws IOException If the file could not be promoted.
+     */
+    private void recoverCompaction() throws IOException {
+        if (!Files.exists(compactFile)) {
             return;
+        }
+        Files.deleteIfExists(rotatedJournalFile);
+        AtomicFileWriter.move(compactFile, dataFile, true);
+    }
 
+    /**
+     * Loads the tasks stored in the data file snapshot.
+     */
+    private void loadSnapshot() {
         assert dataFile != null : "Data file should not be null when loading";
         assert Files.exists(dataFile) : "Data file should exist when loading";
 
         int initialSize = taskList.size();
 
         try {
-            for (String line : Files.readAllLines(dataFile)) {
-                String trimmed = line.trim();
-                if (trimmed.isEmpty())
-                    continue;
-
-                assert trimmed.length() > 0 : "Trimmed line should not be empty";
+            if (isBinary) {
+                BinaryTaskCodec.readAll(dataFile, taskList::add);
+            } else if (isLazy) {
+                taskList.addLazy(new LazyTaskSource(dataFile));
+            } else {
+                ChannelLineReader.forEachLine(dataFile, line -> {
+                    assert line.length() > 0 : "Line should not be empty";
 
-                Task t = Parser.parseSerializedTask(trimmed);
-                if (t != null) {
-                    taskList.add(t);
-                }
+                    Task t = Parser.parseSerializedTask(line);
+                    if (t != null) {
+                        taskList.add(t);
+                    }
+                });
             }
         } catch (IOException e) {
             Ui.printWarning("Could not load tasks: " + e.getMessage());
@@ -82,6 +736,81 @@ public class Storage {
         assert taskList.size() >= initialSize : "Task list size should not decrease after loading";
     }
 
+    /**
+     * Replays journal records on top of the loaded snapshot.
+     * Malformed or out-of-range records are skipped.
+     *
+     * @param journal The journal file to replay.
+     */
+    private void replayJournal(Path journal) {
+        try {
+            ChannelLineReader.forEachLine(journal, this::replayRecord);
+        } catch (IOException e) {
+            Ui.printWarning("Could not replay journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a single journal record to the task list.
+     *
+     * @param record The journal record.
+     */
+    private void replayRecord(String record) {
+        journalRecords++;
+        int spaceIndex = record.indexOf(' ');
+        if (spaceIndex == -1) {
+            return;
+        }
+        String op = record.substring(0, spaceIndex);
+        String arg = record.substring(spaceIndex + 1).trim();
+        try {
+            switch (op) {
+                case ADD_RECORD:
+                    Task t = Parser.parseSerializedTask(arg);
+                    if (t != null) {
+                        taskList.add(t);
+                    }
+                    break;
+                case DELETE_RECORD:
+                    taskList.delete(Parser.parseIndex(arg));
+                    break;
+                case MARK_RECORD:
+                    taskList.mark(Parser.parseIndex(arg));
+                    break;
+                case UNMARK_RECORD:
+                    taskList.unmark(Parser.parseIndex(arg));
+                    break;
+                case TAG_RECORD:
+                    Parser.TagArgs tagArgs = Parser.parseTagArgs(arg);
+                    taskList.tagAll(tagArgs.indices, tagArgs.tag);
+                    break;
+                case UNTAG_RECORD:
+                    Parser.TagArgs untagArgs = Parser.parseTagArgs(arg);
+                    taskList.untagAll(untagArgs.indices, untagArgs.tag);
+                    break;
+                default:
+                    break; // unknown record; skip
+            }
+        } catch (FridayException e) {
+            Ui.printWarning("Skipping journal record '" + record + "': " + e.getMessage().trim());
+        }
+    }
+
+    /**
+     * Converts a data file between the text and binary formats, choosing each
+     * format from the file extension. The source file is left untouched.
+     *
+     * @param source The file to convert from.
+     * @param target The file to convert to.
+     */
+    public static void convert(Path source, Path target) {
+        assert source != null && target != null : "Conversion paths should not be null";
+
+        TaskList tasks = new TaskList();
+        new Storage(source, tasks).load();
+        new Storage(target, tasks).save();
+    }
+
     /**
      * Serializes a task into a string format for storage.
      *
@@ -98,7 +827,15 @@ public class Storage {
 
         assert type != null && !type.isEmpty() : "Task type should be determined";
 
-        return formatSerializedTask(type, doneFlag, t.getDesc(), extra);
+        String serialized = formatSerializedTask(type, doneFlag, t.getDesc(), extra);
+        if (t.getTags().isEmpty()) {
+            return serialized;
+        }
+        // Tags follow the extra field, which must then be written even if blank
+        if (!type.equals(TaskType.EVENT.shortName()) && extra.isBlank()) {
+            serialized += " | ";
+        }
+        return serialized + " | #" + String.join(" #", t.getTags());
     }
 
     /**
@@ -0,0 +1,62 @@
+package friday;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns tags, assigning each distinct normalized tag a small int code.
+ * Tasks store the codes of their tags instead of their own copies of the
+ * strings, so a tag shared by many tasks is held in memory only once.
+ * Codes are never reused, and are shared by every TaskList in the process.
+ */
+final class TagDictionary {
+    static final int NO_CODE = -1;
+
+    private static final Map<String, Integer> codes = new HashMap<>();
+    private static final List<String> tags = new ArrayList<>();
+
+    private TagDictionary() {
+    }
+
+    /**
+     * Returns the code of a normalized tag, assigning a new code if the tag
+     * has not been seen before.
+     *
+     * @param tag The normalized tag.
+     * @return The code of the tag.
+     */
+    static synchronized int intern(String tag) {
+        assert tag != null && !tag.isEmpty() : "Interned tag should not be empty";
+
+        Integer code = codes.get(tag);
+        if (code == null) {
+            code = tags.size();
+            tags.add(tag);
+            codes.put(tag, code);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code of a normalized tag without interning it.
+     *
+     * @param tag The normalized tag.
+     * @return The code of the tag, or -1 if no task has ever had it.
+     */
+    static synchronized int lookup(String tag) {
+        Integer code = codes.get(tag);
+        return code == null ? NO_CODE : code;
+    }
+
+    /**
+     * Returns the tag with the given code.
+     *
+     * @param code A code returned by {@link #intern(String)}.
+     * @return The normalized tag.
+     */
+    static synchronized String get(int code) {
+        return tags.get(code);
+    }
+}
@@ -5,49 +5,106 @@ import java.nio.file.*;
 import java.util.*;
 
 /**
- * Manages tags for tasks using a separate text file.
- * Tag format in file: taskIndex:tag1,tag2,tag3
+ * Manages tags for tasks. Tags are stored on each task as TagDictionary codes
+ * and persisted with the task record, so they stay attached to the right task
+ * when others are deleted.
+ * Keeps an inverted index from each tag code to the bitset of ids of the tasks
+ * carrying it, so tag filters are answered with bitset operations.
+ * Also migrates the legacy tag file, whose format is: taskIndex:tag1,tag2,tag3
  */
 public class TagManager {
-    private final Path tagFile;
-    private final Map<Integer, Set<String>> tagMap;
+    private final List<BitSet> tagIndex = new ArrayList<>();
+    private final BitSet taskIds = new BitSet();
 
     /**
-     * Constructs a TagManager with the given tag file path.
+     * Normalizes a tag for storage and comparison.
      *
-     * @param tagFile The path to the tag file.
+     * @param tag The tag (without # prefix).
+     * @return The trimmed, lowercase tag.
      */
-    public TagManager(Path tagFile) {
-        this.tagFile = tagFile;
-        this.tagMap = new HashMap<>();
-        loadTags();
+    public static String normalize(String tag) {
+        return tag.trim().toLowerCase();
     }
 
     /**
-     * Loads tags from the tag file.
+     * Checks whether a tag can be stored. Tags are saved as space-separated
+     * #tags in a |-delimited record, so they cannot contain whitespace, '#'
+     * or '|'.
+     *
+     * @param tag The tag (without # prefix).
+     * @return True if the tag is not blank and has none of those characters.
+     */
+    public static boolean isValid(String tag) {
+        String trimmed = tag.trim();
+        if (trimmed.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Character.isWhitespace(c) || c == '#' || c == '|') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves tags from a legacy tag file onto the tasks they refer to, then
+     * renames the file so it is not migrated twice. Entries referring to task
+     * numbers that no longer exist are dropped.
+     *
+     * @param tagFile  The legacy tag file.
+     * @param taskList The loaded task list the indices refer to.
+     * @return The number of tags migrated.
      */
-    private void loadTags() {
+    public int migrateLegacyTags(Path tagFile, TaskList taskList) {
         if (!Files.exists(tagFile)) {
-            return;
+            return 0;
         }
 
+        Map<Integer, Set<String>> legacyTags = new HashMap<>();
         try (BufferedReader reader = Files.newBufferedReader(tagFile)) {
             String line;
             while ((line = reader.readLine()) != null) {
-                parseTagLine(line.trim());
+                parseTagLine(line.trim(), legacyTags);
             }
         } catch (IOException e) {
             System.err.println("Error loading tags: " + e.getMessage());
+            return 0;
+        }
+
+        int migrated = 0;
+        for (Map.Entry<Integer, Set<String>> entry : legacyTags.entrySet()) {
+            int taskIndex = entry.getKey();
+            if (taskIndex < 1 || taskIndex > taskList.size()) {
+                continue;
+            }
+            Task task = taskList.get(taskIndex - 1);
+            for (String tag : entry.getValue()) {
+                if (addTag(task, tag)) {
+                    migrated++;
+                }
+            }
+            taskList.markChanged(taskIndex - 1);
         }
+
+        try {
+            Files.move(tagFile, tagFile.resolveSibling(tagFile.getFileName() + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Error retiring legacy tag file: " + e.getMessage());
+        }
+        return migrated;
     }
 
     /**
-     * Parses a single line from the tag file.
+     * Parses a single line from the legacy tag file.
      * Format: taskIndex:tag1,tag2,tag3
      *
-     * @param line The line to parse.
+     * @param line       The line to parse.
+     * @param legacyTags The map to add the parsed tags to.
      */
-    private void parseTagLine(String line) {
+    private void parseTagLine(String line, Map<Integer, Set<String>> legacyTags) {
         if (line.isEmpty()) {
             return;
         }
@@ -62,7 +119,7 @@ public class TagManager {
             String tagsPart = line.substring(colonIndex + 1).trim();
 
             if (!tagsPart.isEmpty()) {
-                Set<String> tags = new HashSet<>();
+                Set<String> tags = new LinkedHashSet<>();
                 String[] tagArray = tagsPart.split(",");
                 for (String tag : tagArray) {
                     String trimmedTag = tag.trim();
@@ -70,7 +127,7 @@ public class TagManager {
                         tags.add(trimmedTag.toLowerCase());
                     }
                 }
-                tagMap.put(taskIndex, tags);
+                legacyTags.put(taskIndex, tags);
             }
         } catch (NumberFormatException e) {
             // Invalid task index, skip this line
@@ -78,104 +135,177 @@ public class TagManager {
     }
 
     /**
-     * Saves all tags to the tag file.
+     * Adds a task and the tags it already carries to the index. Indexing a task
+     * more than once has no further effect.
+     *
+     * @param task The task, which must have an id.
      */
-    public void saveTags() {
-        try {
-            Files.createDirectories(tagFile.getParent());
-            try (BufferedWriter writer = Files.newBufferedWriter(tagFile)) {
-                for (Map.Entry<Integer, Set<String>> entry : tagMap.entrySet()) {
-                    if (!entry.getValue().isEmpty()) {
-                        writer.write(entry.getKey() + ":");
-                        String tagsStr = String.join(",", entry.getValue());
-                        writer.write(tagsStr);
-                        writer.newLine();
-                    }
+    public void indexTask(Task task) {
+        assert task.getId() >= 0 : "Indexed task should have an id";
+
+        taskIds.set(task.getId());
+        for (int code : task.getTagCodes()) {
+            getOrCreateIndexEntry(code).set(task.getId());
+        }
+    }
+
+    /**
+     * Removes a task and its tags from the index.
+     *
+     * @param task The task being removed.
+     */
+    public void unindexTask(Task task) {
+        taskIds.clear(task.getId());
+        for (int code : task.getTagCodes()) {
+            getIndexEntry(code).clear(task.getId());
+        }
+    }
+
+    /**
+     * Returns the bitset of task ids for a tag code, creating it if needed.
+     */
+    private BitSet getOrCreateIndexEntry(int code) {
+        while (tagIndex.size() <= code) {
+            tagIndex.add(null);
+        }
+        BitSet ids = tagIndex.get(code);
+        if (ids == null) {
+            ids = new BitSet();
+            tagIndex.set(code, ids);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the bitset of task ids for a tag code, which is empty if no
+     * indexed task has the tag.
+     */
+    private BitSet getIndexEntry(int code) {
+        if (code == TagDictionary.NO_CODE || code >= tagIndex.size() || tagIndex.get(code) == null) {
+            return new BitSet();
+        }
+        return tagIndex.get(code);
+    }
+
+    /**
+     * Returns the ids of the tasks carrying the given tag.
+     *
+     * @param tag The tag (without # prefix).
+     * @return A new bitset of task ids.
+     */
+    public BitSet getTaskIdsWithTag(String tag) {
+        return (BitSet) getIndexEntry(TagDictionary.lookup(normalize(tag))).clone();
+    }
+
+    /**
+     * Evaluates a tag filter against the index.
+     * Each group is the AND of its terms, and the groups are ORed together.
+     *
+     * @param filter The parsed tag filter.
+     * @return A new bitset of the ids of matching tasks.
+     */
+    public BitSet filter(Parser.TagFilter filter) {
+        BitSet result = new BitSet();
+        for (List<Parser.TagTerm> group : filter.groups) {
+            BitSet groupIds = (BitSet) taskIds.clone();
+            for (Parser.TagTerm term : group) {
+                BitSet termIds = getIndexEntry(TagDictionary.lookup(normalize(term.tag)));
+                if (term.isNegated) {
+                    groupIds.andNot(termIds);
+                } else {
+                    groupIds.and(termIds);
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error saving tags: " + e.getMessage());
+            result.or(groupIds);
         }
+        return result;
     }
 
     /**
      * Adds a tag to a task.
      *
-     * @param taskIndex The 1-based index of the task.
-     * @param tag       The tag to add (without # prefix).
+     * @param task The task to tag.
+     * @param tag  The tag to add (without # prefix).
+     * @return True if the tag was added, false if it was invalid or already
+     *         present.
      */
-    public void addTag(int taskIndex, String tag) {
-        if (tag == null || tag.trim().isEmpty()) {
-            return;
+    public boolean addTag(Task task, String tag) {
+        if (tag == null || !isValid(tag)) {
+            return false;
         }
 
-        tagMap.computeIfAbsent(taskIndex, k -> new HashSet<>())
-                .add(tag.trim().toLowerCase());
-        saveTags();
+        String normalized = normalize(tag);
+        if (!task.addTag(normalized)) {
+            return false;
+        }
+        if (task.getId() >= 0) {
+            getOrCreateIndexEntry(TagDictionary.lookup(normalized)).set(task.getId());
+        }
+        return true;
     }
 
     /**
      * Removes a tag from a task.
      *
-     * @param taskIndex The 1-based index of the task.
-     * @param tag       The tag to remove (without # prefix).
+     * @param task The task to untag.
+     * @param tag  The tag to remove (without # prefix).
+     * @return True if the tag was removed.
      */
-    public void removeTag(int taskIndex, String tag) {
+    public boolean removeTag(Task task, String tag) {
         if (tag == null || tag.trim().isEmpty()) {
-            return;
+            return false;
         }
 
-        Set<String> tags = tagMap.get(taskIndex);
-        if (tags != null) {
-            tags.remove(tag.trim().toLowerCase());
-            if (tags.isEmpty()) {
-                tagMap.remove(taskIndex);
-            }
-            saveTags();
+        String normalized = normalize(tag);
+        if (!task.removeTag(normalized)) {
+            return false;
+        }
+        if (task.getId() >= 0) {
+            getIndexEntry(TagDictionary.lookup(normalized)).clear(task.getId());
         }
+        return true;
     }
 
     /**
      * Gets all tags for a task.
      *
-     * @param taskIndex The 1-based index of the task.
+     * @param task The task.
      * @return The set of tags for the task.
      */
-    public Set<String> getTags(int taskIndex) {
-        return tagMap.getOrDefault(taskIndex, new HashSet<>());
+    public Set<String> getTags(Task task) {
+        return task.getTags();
     }
 
     /**
      * Checks if a task has a specific tag.
      *
-     * @param taskIndex The 1-based index of the task.
-     * @param tag       The tag to check (without # prefix).
+     * @param task The task.
+     * @param tag  The tag to check (without # prefix).
      * @return True if the task has the tag, false otherwise.
      */
-    public boolean hasTag(int taskIndex, String tag) {
+    public boolean hasTag(Task task, String tag) {
         if (tag == null || tag.trim().isEmpty()) {
             return false;
         }
 
-        Set<String> tags = tagMap.get(taskIndex);
-        return tags != null && tags.contains(tag.trim().toLowerCase());
+        return task.hasTagCode(TagDictionary.lookup(normalize(tag)));
     }
 
     /**
      * Gets the display string for tags of a task.
      *
-     * @param taskIndex The 1-based index of the task.
+     * @param task The task.
      * @return The tag display string (e.g., " #fun #work").
      */
-    public String getTagDisplayString(int taskIndex) {
-        Set<String> tags = getTags(taskIndex);
-        if (tags.isEmpty()) {
+    public String getTagDisplayString(Task task) {
+        int[] codes = task.getTagCodes();
+        if (codes.length == 0) {
             return "";
         }
 
         StringBuilder sb = new StringBuilder();
-        for (String tag : tags) {
-            sb.append(" #").append(tag);
+        for (int code : codes) {
+            sb.append(" #").append(TagDictionary.get(code));
         }
         return sb.toString();
     }
@@ -1,11 +1,24 @@
 package friday;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
 /**
  * Represents an abstract task with a description and completion status.
+ * Each task also carries a stable id assigned by its TaskList, and its tags,
+ * which are stored as TagDictionary codes.
  */
 public abstract class Task {
+    private static final int NO_ID = -1;
+    private static final int[] NO_TAGS = new int[0];
+
     private boolean isDone;
     private String desc;
+    private int id = NO_ID;
+    private int[] tagCodes = NO_TAGS;
 
     /**
      * Constructs a Task with the given description.
@@ -30,6 +43,152 @@ public abstract class Task {
         return desc;
     }
 
+    /**
+     * Returns the stable id of the task, which does not change when other
+     * tasks are added or deleted.
+     *
+     * @return The task id, or -1 if the task is not in a TaskList.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Assigns the stable id of the task.
+     *
+     * @param id The task id.
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the tags of the task in the order they were added.
+     *
+     * @return An unmodifiable view of the tags (without # prefix).
+     */
+    public Set<String> getTags() {
+        return new TagView(tagCodes);
+    }
+
+    /**
+     * Returns the dictionary codes of the tags of the task in the order they
+     * were added. The array must not be modified.
+     *
+     * @return The tag codes.
+     */
+    int[] getTagCodes() {
+        return tagCodes;
+    }
+
+    /**
+     * Checks whether the task carries the tag with the given code.
+     *
+     * @param code The tag code.
+     * @return True if the task has the tag.
+     */
+    boolean hasTagCode(int code) {
+        return indexOfTagCode(code) >= 0;
+    }
+
+    /**
+     * Adds a normalized tag to the task. Use TagManager to add tags so that
+     * tags are normalized consistently.
+     *
+     * @param tag The tag to add.
+     * @return True if the tag was not already present.
+     */
+    boolean addTag(String tag) {
+        int code = TagDictionary.intern(tag);
+        if (hasTagCode(code)) {
+            return false;
+        }
+        int[] codes = Arrays.copyOf(tagCodes, tagCodes.length + 1);
+        codes[tagCodes.length] = code;
+        tagCodes = codes;
+        return true;
+    }
+
+    /**
+     * Removes a normalized tag from the task.
+     *
+     * @param tag The tag to remove.
+     * @return True if the tag was present.
+     */
+    boolean removeTag(String tag) {
+        int i = indexOfTagCode(TagDictionary.lookup(tag));
+        if (i < 0) {
+            return false;
+        }
+        int[] codes = new int[tagCodes.length - 1];
+        System.arraycopy(tagCodes, 0, codes, 0, i);
+        System.arraycopy(tagCodes, i + 1, codes, i, codes.length - i);
+        tagCodes = codes.length == 0 ? NO_TAGS : codes;
+        return true;
+    }
+
+    /**
+     * Returns the position of a tag code in the tag codes of the task.
+     */
+    private int indexOfTagCode(int code) {
+        for (int i = 0; i < tagCodes.length; i++) {
+            if (tagCodes[i] == code) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A read-only set of tag names backed by an array of tag codes.
+     */
+    private static class TagView extends AbstractSet<String> {
+        private final int[] codes;
+
+        TagView(int[] codes) {
+            this.codes = codes;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < codes.length;
+                }
+
+                @Override
+                public String next() {
+                    if (next >= codes.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return TagDictionary.get(codes[next++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return codes.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String)) {
+                return false;
+            }
+            int code = TagDictionary.lookup((String) o);
+            for (int c : codes) {
+                if (c == code) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     /**
      * Marks the task as done.
      */
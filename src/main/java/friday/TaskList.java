@@ -1,22 +1,63 @@
 package friday;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * Manages a list of tasks, providing methods to add, delete, mark, and list
  * tasks.
+ * Tasks that were added, changed or removed since they were last drained are
+ * tracked so that Storage only has to re-encode those.
+ * In lazy mode, tasks loaded from a {@link LazyTaskSource} are held as record
+ * numbers and decoded on first access into a bounded cache; a task is only
+ * kept in the list itself once it has been changed.
+ * Every task is given a stable id when it is added, which is kept for the
+ * lifetime of the list regardless of deletions. Tasks are held in a
+ * {@link TaskStore}, so deleting a task does not shift the tasks after it.
+ * During a transaction, every change pushes its inverse onto an undo log, so
+ * rolling back only touches the tasks that were changed.
+ * Listings can be written straight to an {@link Appendable} one row at a
+ * time, so a huge list never has to be held in memory as a single string.
  */
 public class TaskList {
-    private ArrayList<Task> tasks;
+    private static final int LAZY_CACHE_SIZE = 4096;
+    static final int MAX_REPORTED_CLASHES = 100;
+
+    private final TaskStore store = new TaskStore();
     private TagManager tagManager;
+    private Set<Task> dirtyTasks;
+    private Set<Task> removedTasks;
+    private LazyTaskSource lazySource;
+    private Map<Integer, Task> lazyCache;
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final DeadlineIndex deadlineIndex = new DeadlineIndex();
+    private final EventIndex eventIndex = new EventIndex();
+    private boolean isLazyIndexed;
+    private int nextId;
+    private Deque<Runnable> undoLog;
 
     /**
      * Constructs an empty TaskList.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
-        this.tagManager = null;
+        this.tagManager = new TagManager();
+        this.dirtyTasks = newIdentitySet();
+        this.removedTasks = newIdentitySet();
     }
 
     /**
@@ -25,7 +66,146 @@ public class TaskList {
      * @param tagManager The TagManager to use for tag operations.
      */
     public void setTagManager(TagManager tagManager) {
+        assert tagManager != null : "Tag manager should not be null";
         this.tagManager = tagManager;
+        for (int slot = store.nextSlot(-1); slot >= 0; slot = store.nextSlot(slot)) {
+            if (store.getTask(slot) != null) {
+                tagManager.indexTask(store.getTask(slot));
+            }
+        }
+        isLazyIndexed = false;
+    }
+
+    /**
+     * Returns the TagManager used by this TaskList.
+     *
+     * @return The TagManager.
+     */
+    public TagManager getTagManager() {
+        return tagManager;
+    }
+
+    /**
+     * Appends every record of the lazy source to the list without decoding
+     * them. Tasks are decoded when first accessed through {@link #get(int)}.
+     *
+     * @param source The source to read tasks from.
+     */
+    public void addLazy(LazyTaskSource source) {
+        assert source != null : "Lazy source should not be null";
+        assert lazySource == null : "Only one lazy source can be attached";
+
+        lazySource = source;
+        lazyCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > LAZY_CACHE_SIZE;
+            }
+        };
+        for (int i = 0; i < source.size(); i++) {
+            store.appendLazy(nextId++, i);
+        }
+    }
+
+    /**
+     * Returns the task at the given index if it is held in memory, or null if
+     * it is an unchanged task still backed by the lazy source.
+     *
+     * @param idx The 0-based index.
+     * @return The task, or null if it has not been materialised.
+     */
+    public Task getIfMaterialised(int idx) {
+        return store.getTask(store.slotAt(idx));
+    }
+
+    /**
+     * Returns the raw serialized record of an unmaterialised task.
+     *
+     * @param idx The 0-based index of a task for which
+     *            {@link #getIfMaterialised(int)} returns null.
+     * @return The record bytes, without the line separator.
+     */
+    public byte[] getRawRecord(int idx) {
+        int slot = store.slotAt(idx);
+        assert store.getTask(slot) == null : "Task should not be materialised";
+        return lazySource.readRecord(store.getLazyRecord(slot));
+    }
+
+    /**
+     * Returns the task in a slot, decoding it if it is lazily loaded.
+     *
+     * @param slot A live slot of the store.
+     * @return The task.
+     */
+    private Task getAtSlot(int slot) {
+        Task task = store.getTask(slot);
+        return task != null ? task : getLazy(slot);
+    }
+
+    /**
+     * Decodes the lazily loaded task in the given slot through the cache.
+     *
+     * @param slot A live slot of the store.
+     * @return The decoded task.
+     */
+    private Task getLazy(int slot) {
+        int record = store.getLazyRecord(slot);
+        assert record != TaskStore.NOT_LAZY : "Unmaterialised task should have a lazy record";
+
+        Task task = lazyCache.get(record);
+        if (task == null) {
+            task = lazySource.decode(record);
+            task.setId(store.getId(slot));
+            if (!isLazyIndexed) {
+                index(task);
+            }
+            lazyCache.put(record, task);
+        }
+        return task;
+    }
+
+    /**
+     * Keeps a task in the list itself so changes to it are not lost when it is
+     * evicted from the lazy cache.
+     *
+     * @param idx  The 0-based index.
+     * @param task The task at that index.
+     */
+    private void materialise(int idx, Task task) {
+        int slot = store.slotAt(idx);
+        if (store.getTask(slot) == null) {
+            lazyCache.remove(store.getLazyRecord(slot));
+            store.setTask(slot, task);
+        }
+    }
+
+    /**
+     * Appends a task to the end of the list and assigns it a stable id.
+     *
+     * @param task The task to append.
+     */
+    private void append(Task task) {
+        task.setId(nextId++);
+        index(task);
+        store.append(task, task.getId());
+        dirtyTasks.add(task);
+        logUndo(() -> {
+            store.remove(store.slotOfId(task.getId()));
+            unindex(task);
+            dirtyTasks.remove(task);
+        });
+    }
+
+    /**
+     * Records that the task at the given index was changed outside of this
+     * class, so that it is saved again.
+     *
+     * @param idx The 0-based index.
+     */
+    public void markChanged(int idx) {
+        Task task = get(idx);
+        materialise(idx, task);
+        dirtyTasks.add(task);
     }
 
     /**
@@ -40,12 +220,12 @@ public class TaskList {
         }
 
         assert desc != null && !desc.isBlank() : "Description should be valid after validation";
-        int sizeBefore = tasks.size();
+        int sizeBefore = size();
 
-        tasks.add(new ToDo(desc));
+        append(new ToDo(desc));
 
-        assert tasks.size() == sizeBefore + 1 : "Task list size should increase by 1 after adding";
-        assert tasks.get(tasks.size() - 1) instanceof ToDo : "Last added task should be a ToDo";
+        assert size() == sizeBefore + 1 : "Task list size should increase by 1 after adding";
+        assert get(size() - 1) instanceof ToDo : "Last added task should be a ToDo";
     }
 
     /**
@@ -61,12 +241,12 @@ public class TaskList {
         }
 
         assert desc != null && !desc.isBlank() : "Description should be valid after validation";
-        int sizeBefore = tasks.size();
+        int sizeBefore = size();
 
-        tasks.add(new Deadline(desc, by));
+        append(new Deadline(desc, by));
 
-        assert tasks.size() == sizeBefore + 1 : "Task list size should increase by 1 after adding";
-        assert tasks.get(tasks.size() - 1) instanceof Deadline : "Last added task should be a Deadline";
+        assert size() == sizeBefore + 1 : "Task list size should increase by 1 after adding";
+        assert get(size() - 1) instanceof Deadline : "Last added task should be a Deadline";
     }
 
     /**
@@ -81,7 +261,7 @@ public class TaskList {
         if (desc == null || desc.isBlank()) {
             throw new FridayException("An event needs a description.");
         }
-        tasks.add(new Event(desc, from, to));
+        append(new Event(desc, from, to));
     }
 
     /**
@@ -91,15 +271,24 @@ public class TaskList {
      * @throws FridayException If the index is out of range.
      */
     public void delete(int idx) throws FridayException {
-        if (idx >= 1 && idx <= tasks.size()) {
-            assert idx >= 1 && idx <= tasks.size() : "Index should be valid before deletion";
-            int sizeBefore = tasks.size();
-            Task removedTask = tasks.get(idx - 1);
+        if (idx >= 1 && idx <= size()) {
+            assert idx >= 1 && idx <= size() : "Index should be valid before deletion";
+            int sizeBefore = size();
+            int slot = store.slotAt(idx - 1);
+            Task removedTask = getAtSlot(slot);
+            int record = store.getLazyRecord(slot);
 
-            tasks.remove(idx - 1);
+            if (record != TaskStore.NOT_LAZY) {
+                lazyCache.remove(record);
+            }
+            store.remove(slot);
+            unindex(removedTask);
+            dirtyTasks.remove(removedTask);
+            removedTasks.add(removedTask);
+            logUndo(() -> restore(slot, removedTask, record));
 
-            assert tasks.size() == sizeBefore - 1 : "Task list size should decrease by 1 after deletion";
-            assert !tasks.contains(removedTask) : "Removed task should no longer be in the list";
+            assert size() == sizeBefore - 1 : "Task list size should decrease by 1 after deletion";
+            assert store.slotOfId(removedTask.getId()) == -1 : "Removed task should no longer be in the list";
         } else {
             throw new FridayException("That task number doesn't exist.");
         }
@@ -112,11 +301,15 @@ public class TaskList {
      * @throws FridayException If the index is out of range.
      */
     public void mark(int idx) throws FridayException {
-        if (idx >= 1 && idx <= tasks.size()) {
-            assert idx >= 1 && idx <= tasks.size() : "Index should be valid before marking";
-            Task task = tasks.get(idx - 1);
+        if (idx >= 1 && idx <= size()) {
+            assert idx >= 1 && idx <= size() : "Index should be valid before marking";
+            Task task = get(idx - 1);
+            materialise(idx - 1, task);
+            boolean wasDone = task.checkDone();
 
             task.markDone();
+            dirtyTasks.add(task);
+            logUndo(() -> restoreDone(task, wasDone));
 
             assert task.checkDone() : "Task should be marked as done after marking";
         } else {
@@ -131,11 +324,15 @@ public class TaskList {
      * @throws FridayException If the index is out of range.
      */
     public void unmark(int idx) throws FridayException {
-        if (idx >= 1 && idx <= tasks.size()) {
-            assert idx >= 1 && idx <= tasks.size() : "Index should be valid before unmarking";
-            Task task = tasks.get(idx - 1);
+        if (idx >= 1 && idx <= size()) {
+            assert idx >= 1 && idx <= size() : "Index should be valid before unmarking";
+            Task task = get(idx - 1);
+            materialise(idx - 1, task);
+            boolean wasDone = task.checkDone();
 
             task.markUndone();
+            dirtyTasks.add(task);
+            logUndo(() -> restoreDone(task, wasDone));
 
             assert !task.checkDone() : "Task should be marked as undone after unmarking";
         } else {
@@ -143,30 +340,254 @@ public class TaskList {
         }
     }
 
+    /**
+     * Marks several tasks as done. Either every index is valid and all of the
+     * tasks are marked, or nothing changes.
+     *
+     * @param indices The 1-based indices of the tasks to mark.
+     * @throws FridayException If any index is out of range.
+     */
+    public void markAll(int[] indices) throws FridayException {
+        checkIndices(indices);
+        for (int idx : indices) {
+            mark(idx);
+        }
+    }
+
+    /**
+     * Marks several tasks as undone. Either every index is valid and all of
+     * the tasks are unmarked, or nothing changes.
+     *
+     * @param indices The 1-based indices of the tasks to unmark.
+     * @throws FridayException If any index is out of range.
+     */
+    public void unmarkAll(int[] indices) throws FridayException {
+        checkIndices(indices);
+        for (int idx : indices) {
+            unmark(idx);
+        }
+    }
+
+    /**
+     * Deletes several tasks. Either every index is valid and all of the tasks
+     * are deleted, or nothing changes. Tasks are deleted from the highest
+     * index down, so each index refers to the list as it was before the call.
+     *
+     * @param indices The distinct 1-based indices of the tasks to delete, in
+     *                ascending order.
+     * @return The deleted tasks, in the same order as the indices.
+     * @throws FridayException If any index is out of range.
+     */
+    public List<Task> deleteAll(int[] indices) throws FridayException {
+        checkIndices(indices);
+        Task[] deleted = new Task[indices.length];
+        for (int i = indices.length - 1; i >= 0; i--) {
+            assert i == 0 || indices[i - 1] < indices[i] : "Indices should be distinct and ascending";
+            deleted[i] = get(indices[i] - 1);
+            delete(indices[i]);
+        }
+        return Arrays.asList(deleted);
+    }
+
+    /**
+     * Adds a tag to several tasks. Either every index is valid and all of the
+     * tasks are tagged, or nothing changes.
+     *
+     * @param indices The 1-based indices of the tasks to tag.
+     * @param tag     The tag to add (without # prefix).
+     * @throws FridayException If any index is out of range or the tag is invalid.
+     */
+    public void tagAll(int[] indices, String tag) throws FridayException {
+        checkIndices(indices);
+        for (int idx : indices) {
+            tag(idx, tag);
+        }
+    }
+
+    /**
+     * Removes a tag from those of several tasks that have it.
+     *
+     * @param indices The 1-based indices of the tasks to untag.
+     * @param tag     The tag to remove (without # prefix).
+     * @return The indices of the tasks the tag was removed from.
+     * @throws FridayException If any index is out of range, the tag is invalid
+     *                         or none of the tasks have the tag.
+     */
+    public int[] untagAll(int[] indices, String tag) throws FridayException {
+        checkIndices(indices);
+        if (indices.length == 1) {
+            untag(indices[0], tag);
+            return indices;
+        }
+
+        int[] untagged = new int[indices.length];
+        int count = 0;
+        for (int idx : indices) {
+            if (tagManager.hasTag(get(idx - 1), tag)) {
+                untag(idx, tag);
+                untagged[count++] = idx;
+            }
+        }
+        if (count == 0) {
+            throw new FridayException("None of those tasks have the tag '" + tag + "'.");
+        }
+        return Arrays.copyOf(untagged, count);
+    }
+
+    /**
+     * Checks that every index refers to a task, before a bulk change is made.
+     *
+     * @param indices The 1-based indices.
+     * @throws FridayException If any index is out of range.
+     */
+    private void checkIndices(int[] indices) throws FridayException {
+        for (int idx : indices) {
+            if (idx < 1 || idx > size()) {
+                throw new FridayException(indices.length == 1
+                        ? "That task number doesn't exist."
+                        : "Task number " + idx + " doesn't exist.");
+            }
+        }
+    }
+
     /**
      * Returns a string representation of the task list.
      *
      * @return The list string.
      */
     public String list() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Here are the tasks in your list:\n");
-        for (int i = 0; i < tasks.size(); i++) {
-            sb.append(" ").append(i + 1).append(".").append(getDisplayWithTags(i));
-            if (i < tasks.size() - 1) {
-                sb.append("\n");
+        return toText(this::list);
+    }
+
+    /**
+     * Writes the task list to an output one task at a time, in the same
+     * format as {@link #list()}.
+     *
+     * @param out The output to write to.
+     * @throws IOException If writing fails.
+     */
+    public void list(Appendable out) throws IOException {
+        out.append("Here are the tasks in your list:\n");
+        int position = 0;
+        for (int slot = store.nextSlot(-1); slot >= 0; slot = store.nextSlot(slot)) {
+            position++;
+            out.append(" ").append(String.valueOf(position)).append(".").append(getDisplayWithTags(getAtSlot(slot)));
+            if (position < size()) {
+                out.append("\n");
             }
         }
+    }
+
+    /**
+     * Returns a window of the list, formatting only the tasks in it.
+     *
+     * @param offset The 0-based index of the first task to show.
+     * @param limit  The most tasks to show.
+     * @return The tasks in the window, numbered by their position in the list.
+     */
+    public String list(int offset, int limit) {
+        List<Task> page = getPage(offset, limit);
+        if (page.isEmpty()) {
+            return "There are no tasks there.";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Here are tasks ").append(offset + 1).append(" to ").append(offset + page.size())
+                .append(" of ").append(size()).append(" in your list:");
+        for (int i = 0; i < page.size(); i++) {
+            sb.append("\n ").append(offset + i + 1).append(".").append(getDisplayWithTags(page.get(i)));
+        }
         return sb.toString();
     }
 
     /**
-     * Returns the list of tasks.
+     * Returns the tasks in a window of the list, walking only the slots in
+     * the window. In lazy mode, only those tasks are decoded.
+     *
+     * @param offset The 0-based index of the first task.
+     * @param limit  The most tasks to return.
+     * @return The tasks, which are fewer than the limit at the end of the list.
+     */
+    public List<Task> getPage(int offset, int limit) {
+        assert offset >= 0 && limit >= 0 : "Page bounds should not be negative";
+
+        List<Task> page = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+        if (offset >= size()) {
+            return page;
+        }
+        for (int slot = store.slotAt(offset); slot >= 0 && page.size() < limit; slot = store.nextSlot(slot)) {
+            page.add(getAtSlot(slot));
+        }
+        return page;
+    }
+
+    /**
+     * Returns the tasks matching a query, numbered by their position in the
+     * list.
+     *
+     * @param query The compiled query.
+     * @return A formatted string of matching tasks.
+     */
+    public String list(Predicate<Task> query) {
+        return toText(out -> list(query, out));
+    }
+
+    /**
+     * Writes the tasks matching a query to an output one task at a time, in
+     * the same format as {@link #list(Predicate)}.
+     *
+     * @param query The compiled query.
+     * @param out   The output to write to.
+     * @throws IOException If writing fails.
+     */
+    public void list(Predicate<Task> query, Appendable out) throws IOException {
+        int[] matches = findMatching(query);
+        if (matches.length == 0) {
+            out.append("No tasks match that query.");
+            return;
+        }
+
+        out.append("Here are the matching tasks in your list:");
+        for (int idx : matches) {
+            out.append("\n ").append(String.valueOf(idx)).append(".").append(getDisplayWithTags(idx - 1));
+        }
+    }
+
+    /**
+     * Returns the positions of the tasks matching a query, in one pass over
+     * the list.
+     *
+     * @param query The compiled query.
+     * @return The matching 1-based indices in ascending order.
+     */
+    public int[] findMatching(Predicate<Task> query) {
+        int[] matches = new int[Math.min(size(), 16)];
+        int count = 0;
+        int position = 0;
+        for (int slot = store.nextSlot(-1); slot >= 0; slot = store.nextSlot(slot)) {
+            position++;
+            if (query.test(getAtSlot(slot))) {
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, count * 2);
+                }
+                matches[count++] = position;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Returns a copy of the list of tasks.
+     * In lazy mode, this decodes every task.
      *
      * @return The ArrayList of tasks.
      */
     public ArrayList<Task> getTasks() {
-        return tasks;
+        ArrayList<Task> all = new ArrayList<>(size());
+        for (int slot = store.nextSlot(-1); slot >= 0; slot = store.nextSlot(slot)) {
+            all.add(getAtSlot(slot));
+        }
+        return all;
     }
 
     /**
@@ -175,7 +596,7 @@ public class TaskList {
      * @return The size of the task list.
      */
     public int size() {
-        return tasks.size();
+        return store.size();
     }
 
     /**
@@ -185,9 +606,9 @@ public class TaskList {
      * @return The task at the index.
      */
     public Task get(int idx) {
-        assert idx >= 0 && idx < tasks.size() : "Index should be within bounds for 0-based access";
+        assert idx >= 0 && idx < size() : "Index should be within bounds for 0-based access";
 
-        Task task = tasks.get(idx);
+        Task task = getAtSlot(store.slotAt(idx));
 
         assert task != null : "Retrieved task should not be null";
         return task;
@@ -200,40 +621,591 @@ public class TaskList {
      */
     public void add(Task t) {
         assert t != null : "Task to add should not be null";
-        int sizeBefore = tasks.size();
+        int sizeBefore = size();
+
+        append(t);
+
+        assert size() == sizeBefore + 1 : "Task list size should increase by 1 after adding";
+        assert get(size() - 1) == t : "Added task should be in the list";
+    }
+
+    /**
+     * Returns the tasks added or changed since the last call, and stops
+     * tracking them.
+     *
+     * @return The set of dirty tasks, compared by identity.
+     */
+    public Set<Task> drainDirtyTasks() {
+        Set<Task> drained = dirtyTasks;
+        dirtyTasks = newIdentitySet();
+        return drained;
+    }
 
-        tasks.add(t);
+    /**
+     * Returns the tasks removed since the last call, and stops tracking them.
+     *
+     * @return The set of removed tasks, compared by identity.
+     */
+    public Set<Task> drainRemovedTasks() {
+        Set<Task> drained = removedTasks;
+        removedTasks = newIdentitySet();
+        return drained;
+    }
 
-        assert tasks.size() == sizeBefore + 1 : "Task list size should increase by 1 after adding";
-        assert tasks.contains(t) : "Added task should be in the list";
+    /**
+     * Creates an empty set that compares tasks by identity.
+     *
+     * @return The new set.
+     */
+    private static Set<Task> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
     }
 
     /**
-     * Finds tasks whose descriptions contain the given keyword.
+     * Finds tasks whose descriptions contain the given keywords.
      *
-     * @param keyword The keyword to search for.
+     * @param query The keywords, as accepted by {@link Parser#parseKeywordQuery(String)}.
      * @return A formatted string of matching tasks.
+     * @throws FridayException If the query is malformed.
      */
-    public String find(String keyword) {
+    public String find(String query) throws FridayException {
+        Parser.KeywordQuery keywords = Parser.parseKeywordQuery(query);
+        return toText(out -> writeMatches(findIndices(keywords), out));
+    }
+
+    /**
+     * Writes the tasks whose descriptions contain the given keywords to an
+     * output one task at a time, in the same format as {@link #find(String)}.
+     *
+     * @param query The keywords, as accepted by {@link Parser#parseKeywordQuery(String)}.
+     * @param out   The output to write to.
+     * @throws FridayException If the query is malformed.
+     * @throws IOException     If writing fails.
+     */
+    public void find(String query, Appendable out) throws FridayException, IOException {
+        writeMatches(findIndices(Parser.parseKeywordQuery(query)), out);
+    }
+
+    /**
+     * Writes the tasks found by a keyword search, numbered by their rank.
+     */
+    private void writeMatches(int[] matches, Appendable out) throws IOException {
+        if (matches.length == 0) {
+            out.append("No matching tasks found.");
+            return;
+        }
+
+        out.append("Here are the matching tasks in your list:");
+        for (int i = 0; i < matches.length; i++) {
+            out.append("\n ").append(String.valueOf(i + 1)).append(".").append(getDisplayWithTags(matches[i]));
+        }
+    }
+
+    /**
+     * Writes something to a string. Listings are written to an Appendable,
+     * and this gives the string form for callers that want one.
+     *
+     * @param writer Writes the text.
+     * @return The text written.
+     */
+    private static String toText(TextWriter writer) {
         StringBuilder sb = new StringBuilder();
-        sb.append("Here are the matching tasks in your list:\n");
+        try {
+            writer.writeTo(sb);
+        } catch (IOException e) {
+            throw new AssertionError("Appending to a StringBuilder should not fail", e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes text to an Appendable.
+     */
+    private interface TextWriter {
+        void writeTo(Appendable out) throws IOException;
+    }
+
+    /**
+     * Returns the positions of the tasks matching a keyword query. Candidates
+     * are taken from the search index and then checked against their
+     * descriptions, so only candidate tasks are decoded.
+     * Results are in list order, unless the query has prefix or fuzzy
+     * keywords, in which case the best matches come first.
+     *
+     * @param query The parsed keyword query.
+     * @return The matching 0-based indices.
+     */
+    private int[] findIndices(Parser.KeywordQuery query) {
+        indexLazyTasks();
+        Map<Integer, Integer> costs = new HashMap<>();
+        for (List<Parser.Keyword> group : query.groups) {
+            List<String> substrings = new ArrayList<>();
+            Map<Integer, Integer> wordMatches = null;
+            for (Parser.Keyword keyword : group) {
+                if (keyword.mode == Parser.KeywordMode.SUBSTRING) {
+                    substrings.add(keyword.text);
+                } else {
+                    Map<Integer, Integer> matches = findWords(keyword);
+                    wordMatches = wordMatches == null ? matches : intersect(wordMatches, matches);
+                }
+            }
+
+            if (wordMatches == null) {
+                findSubstrings(substrings).stream().forEach(idx -> costs.put(idx, 0));
+            } else {
+                for (Map.Entry<Integer, Integer> match : wordMatches.entrySet()) {
+                    int idx = indexOfId(match.getKey());
+                    if (idx >= 0 && containsAll(idx, substrings)) {
+                        costs.merge(idx, match.getValue(), Math::min);
+                    }
+                }
+            }
+        }
+
+        // Sort by cost, then position, packed into longs to avoid boxing
+        long[] ranked = new long[costs.size()];
         int count = 0;
-        for (int i = 0; i < tasks.size(); i++) {
-            if (tasks.get(i).getDesc().toLowerCase().contains(keyword.toLowerCase())) {
-                count++;
-                sb.append(" ").append(count).append(".").append(getDisplayWithTags(i));
-                if (i < tasks.size() - 1) {
-                    sb.append("\n");
+        for (Map.Entry<Integer, Integer> entry : costs.entrySet()) {
+            ranked[count++] = ((long) entry.getValue() << 32) | entry.getKey();
+        }
+        Arrays.sort(ranked);
+        int[] indices = new int[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            indices[i] = (int) ranked[i];
+        }
+        return indices;
+    }
+
+    /**
+     * Returns the positions of the tasks whose descriptions contain every
+     * keyword, using the trigram index to limit the tasks checked.
+     */
+    private BitSet findSubstrings(List<String> keywords) {
+        int[] candidates = null;
+        for (String keyword : keywords) {
+            int[] ids = searchIndex.getCandidates(keyword);
+            if (ids != null && (candidates == null || ids.length < candidates.length)) {
+                candidates = ids;
+            }
+        }
+
+        BitSet positions = new BitSet();
+        if (candidates == null) {
+            for (int i = 0; i < size(); i++) {
+                if (containsAll(i, keywords)) {
+                    positions.set(i);
+                }
+            }
+        } else {
+            for (int id : candidates) {
+                int idx = indexOfId(id);
+                if (idx >= 0 && containsAll(idx, keywords)) {
+                    positions.set(idx);
                 }
             }
         }
-        if (count == 0) {
-            sb.setLength(0); // clear
-            sb.append("No matching tasks found.");
+        return positions;
+    }
+
+    /**
+     * Checks whether the description at a position contains every keyword.
+     */
+    private boolean containsAll(int idx, List<String> keywords) {
+        if (keywords.isEmpty()) {
+            return true;
+        }
+        String desc = get(idx).getDesc().toLowerCase();
+        for (String keyword : keywords) {
+            if (!desc.contains(keyword)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks up a prefix or fuzzy keyword in the word trie.
+     *
+     * @param keyword The keyword.
+     * @return The best match cost of each matching task id.
+     */
+    private Map<Integer, Integer> findWords(Parser.Keyword keyword) {
+        Map<Integer, Integer> matches = new HashMap<>();
+        TokenTrie.MatchConsumer consumer = (id, cost) -> matches.merge(id, cost, Math::min);
+        if (keyword.mode == Parser.KeywordMode.PREFIX) {
+            searchIndex.findPrefix(keyword.text, consumer);
+        } else {
+            searchIndex.findFuzzy(keyword.text, getMaxEditDistance(keyword.text), consumer);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns how many typos a fuzzy keyword tolerates: none for very short
+     * words, where any typo would match too much, and at most two.
+     */
+    private static int getMaxEditDistance(String keyword) {
+        if (keyword.length() <= 2) {
+            return 0;
+        }
+        return keyword.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Keeps the ids present in both maps, adding up their costs.
+     */
+    private static Map<Integer, Integer> intersect(Map<Integer, Integer> a, Map<Integer, Integer> b) {
+        Map<Integer, Integer> smaller = a.size() <= b.size() ? a : b;
+        Map<Integer, Integer> larger = smaller == a ? b : a;
+        Map<Integer, Integer> result = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : smaller.entrySet()) {
+            Integer cost = larger.get(entry.getKey());
+            if (cost != null) {
+                result.put(entry.getKey(), entry.getValue() + cost);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position of the task with the given id.
+     *
+     * @param id The task id.
+     * @return The 0-based index, or -1 if no task has that id.
+     */
+    private int indexOfId(int id) {
+        int slot = store.slotOfId(id);
+        return slot < 0 ? -1 : store.positionOf(slot);
+    }
+
+    /**
+     * Returns the deadlines due in a range of dates, earliest first, numbered
+     * by their position in the list.
+     *
+     * @param from         The first date, inclusive, or null for no lower bound.
+     * @param to           The last date, inclusive, or null for no upper bound.
+     * @param isUndoneOnly Whether to leave out deadlines that are done.
+     * @return A formatted string of matching deadlines.
+     */
+    public String findDeadlines(LocalDate from, LocalDate to, boolean isUndoneOnly) {
+        return toText(out -> findDeadlines(from, to, isUndoneOnly, out));
+    }
+
+    /**
+     * Writes the deadlines due in a range of dates to an output one task at a
+     * time, in the same format as {@link #findDeadlines(LocalDate, LocalDate, boolean)}.
+     *
+     * @param from         The first date, inclusive, or null for no lower bound.
+     * @param to           The last date, inclusive, or null for no upper bound.
+     * @param isUndoneOnly Whether to leave out deadlines that are done.
+     * @param out          The output to write to.
+     * @throws IOException If writing fails.
+     */
+    public void findDeadlines(LocalDate from, LocalDate to, boolean isUndoneOnly, Appendable out)
+            throws IOException {
+        indexLazyTasks();
+        IntStream.Builder found = IntStream.builder();
+        deadlineIndex.forEachBetween(from, to, id -> {
+            int idx = indexOfId(id);
+            if (idx >= 0 && !(isUndoneOnly && get(idx).checkDone())) {
+                found.add(idx);
+            }
+        });
+        writeByPosition(found.build().toArray(), "Here are the matching deadlines in your list:",
+                "No deadlines found.", out);
+    }
+
+    /**
+     * Returns the events overlapping a period, earliest first, numbered by
+     * their position in the list. Only events with parsed times are found.
+     *
+     * @param from The start of the period, inclusive.
+     * @param to   The end of the period, exclusive.
+     * @return A formatted string of matching events.
+     */
+    public String findEvents(LocalDateTime from, LocalDateTime to) {
+        return toText(out -> findEvents(from, to, out));
+    }
+
+    /**
+     * Writes the events overlapping a period to an output one task at a time,
+     * in the same format as {@link #findEvents(LocalDateTime, LocalDateTime)}.
+     *
+     * @param from The start of the period, inclusive.
+     * @param to   The end of the period, exclusive.
+     * @param out  The output to write to.
+     * @throws IOException If writing fails.
+     */
+    public void findEvents(LocalDateTime from, LocalDateTime to, Appendable out) throws IOException {
+        indexLazyTasks();
+        IntStream.Builder found = IntStream.builder();
+        eventIndex.forEachOverlapping(from, to, id -> {
+            int idx = indexOfId(id);
+            if (idx >= 0) {
+                found.add(idx);
+            }
+        });
+        writeByPosition(found.build().toArray(), "Here are the events in that period:", "No events found.", out);
+    }
+
+    /**
+     * Writes the tasks at the given indices in the given order, each numbered
+     * by its position in the list, or a message if there are none.
+     */
+    private void writeByPosition(int[] indices, String header, String none, Appendable out) throws IOException {
+        if (indices.length == 0) {
+            out.append(none);
+            return;
+        }
+
+        out.append(header);
+        for (int idx : indices) {
+            out.append("\n ").append(String.valueOf(idx + 1)).append(".").append(getDisplayWithTags(idx));
+        }
+    }
+
+    /**
+     * Returns the events that overlap the event at the given index.
+     *
+     * @param idx The 1-based index of the event.
+     * @return A formatted string of the overlapping events.
+     * @throws FridayException If the index is out of range or the task is not
+     *                         an event with parsed times.
+     */
+    public String findConflicts(int idx) throws FridayException {
+        if (idx < 1 || idx > size()) {
+            throw new FridayException("That task number doesn't exist.");
+        }
+        Task task = get(idx - 1);
+        if (!EventIndex.isTimed(task)) {
+            throw new FridayException("That task is not an event with a date and time.");
+        }
+
+        indexLazyTasks();
+        StringBuilder sb = new StringBuilder();
+        eventIndex.forEachOverlapping((Event) task, id -> appendById(sb, "\n ", id));
+        if (sb.length() == 0) {
+            return "That event does not clash with any other event.";
+        }
+        return "These events clash with " + task.display() + ":" + sb;
+    }
+
+    /**
+     * Returns the pairs of overlapping events, each pair listed once in order
+     * of the start of the earlier event. Only the first
+     * {@value #MAX_REPORTED_CLASHES} pairs are listed, and the search stops
+     * there, since a crowded list can have a pair for every two events.
+     *
+     * @return A formatted string of the clashing pairs.
+     */
+    public String findConflicts() {
+        indexLazyTasks();
+        StringBuilder sb = new StringBuilder();
+        int[] reported = new int[1];
+        boolean isComplete = eventIndex.forEachOverlappingWhile(LocalDateTime.MIN, LocalDateTime.MAX, id -> {
+            int idx = indexOfId(id);
+            if (idx < 0) {
+                return true; // left behind by a task no longer in the list
+            }
+            Event event = (Event) get(idx);
+            return eventIndex.forEachOverlappingWhile(event, otherId -> {
+                int otherIdx = indexOfId(otherId);
+                if (otherIdx < 0) {
+                    return true;
+                }
+                Event other = (Event) get(otherIdx);
+                int order = other.getStart().compareTo(event.getStart());
+                if (order < 0 || (order == 0 && otherId < id)) {
+                    return true; // listed with the other event
+                }
+                if (reported[0] == MAX_REPORTED_CLASHES) {
+                    return false;
+                }
+                appendById(sb, "\n ", id);
+                appendById(sb, "\n    clashes with ", otherId);
+                reported[0]++;
+                return true;
+            });
+        });
+        if (sb.length() == 0) {
+            return "None of your events clash.";
+        }
+        if (!isComplete) {
+            sb.append("\nThere are more clashes. Use conflicts <task number> to see those of one event.");
+        }
+        return "Here are the clashing events in your list:" + sb;
+    }
+
+    /**
+     * Appends the numbered display of the task with the given id.
+     */
+    private void appendById(StringBuilder sb, String prefix, int id) {
+        int idx = indexOfId(id);
+        if (idx >= 0) {
+            sb.append(prefix).append(idx + 1).append(".").append(getDisplayWithTags(idx));
+        }
+    }
+
+    /**
+     * Returns the tasks matching a tag filter, numbered by their position in
+     * the list.
+     *
+     * @param filter The parsed tag filter.
+     * @return A formatted string of matching tasks.
+     */
+    public String filterByTags(Parser.TagFilter filter) {
+        indexLazyTasks();
+        BitSet matches = tagManager.filter(filter);
+        if (matches.isEmpty()) {
+            return "No tasks match that tag filter.";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Here are the tasks matching your tag filter:");
+        int position = 0;
+        for (int slot = store.nextSlot(-1); slot >= 0; slot = store.nextSlot(slot)) {
+            position++;
+            if (matches.get(store.getId(slot))) {
+                sb.append("\n ").append(position).append(".").append(getDisplayWithTags(getAtSlot(slot)));
+            }
         }
         return sb.toString();
     }
 
+    /**
+     * Indexes the lazily loaded tasks that have never been decoded, so
+     * queries see every task. Only done once, on the first query.
+     */
+    private void indexLazyTasks() {
+        if (lazySource == null || isLazyIndexed) {
+            return;
+        }
+        for (int slot = store.nextSlot(-1); slot >= 0; slot = store.nextSlot(slot)) {
+            int record = store.getLazyRecord(slot);
+            if (record != TaskStore.NOT_LAZY && !lazyCache.containsKey(record)) {
+                Task task = lazySource.decode(record);
+                task.setId(store.getId(slot));
+                index(task);
+            }
+        }
+        isLazyIndexed = true;
+    }
+
+    /**
+     * Adds a task to the tag, search, deadline and event indices.
+     *
+     * @param task The task, which must have an id.
+     */
+    private void index(Task task) {
+        tagManager.indexTask(task);
+        searchIndex.add(task.getId(), task.getDesc());
+        deadlineIndex.add(task);
+        eventIndex.add(task);
+    }
+
+    /**
+     * Removes a task from the tag, search, deadline and event indices.
+     *
+     * @param task The task.
+     */
+    private void unindex(Task task) {
+        tagManager.unindexTask(task);
+        searchIndex.remove(task.getId());
+        deadlineIndex.remove(task);
+        eventIndex.remove(task);
+    }
+
+    /**
+     * Starts a transaction. Changes made until it is committed or rolled back
+     * are logged so that they can be undone.
+     */
+    public void beginTransaction() {
+        assert undoLog == null : "Transactions should not be nested";
+        undoLog = new ArrayDeque<>();
+        store.setCompactionSuspended(true); // keeps deleted slots around to revive
+    }
+
+    /**
+     * Keeps the changes made during the transaction.
+     *
+     * @return The number of changes made during the transaction.
+     */
+    public int commitTransaction() {
+        assert undoLog != null : "A transaction should be in progress";
+        int changes = undoLog.size();
+        undoLog = null;
+        store.setCompactionSuspended(false);
+        return changes;
+    }
+
+    /**
+     * Undoes the changes made during the transaction, newest first, restoring
+     * the list, its indices and the tags to their state when it began.
+     *
+     * @return The number of changes undone.
+     */
+    public int rollbackTransaction() {
+        assert undoLog != null : "A transaction should be in progress";
+        int changes = undoLog.size();
+        Deque<Runnable> log = undoLog;
+        undoLog = null; // undoing must not log further changes
+        while (!log.isEmpty()) {
+            log.pop().run();
+        }
+        store.setCompactionSuspended(false);
+        return changes;
+    }
+
+    /**
+     * Returns whether a transaction is in progress.
+     *
+     * @return True if changes are being logged for rollback.
+     */
+    public boolean isInTransaction() {
+        return undoLog != null;
+    }
+
+    /**
+     * Logs the inverse of a change, if a transaction is in progress.
+     *
+     * @param undo Reverts the change.
+     */
+    private void logUndo(Runnable undo) {
+        if (undoLog != null) {
+            undoLog.push(undo);
+        }
+    }
+
+    /**
+     * Puts a deleted task back in the slot it was deleted from.
+     *
+     * @param slot   The slot, which must not have been compacted away.
+     * @param task   The deleted task.
+     * @param record The lazy record of the task, or {@link TaskStore#NOT_LAZY}.
+     */
+    private void restore(int slot, Task task, int record) {
+        if (record == TaskStore.NOT_LAZY) {
+            store.revive(slot, task, record);
+            dirtyTasks.add(task);
+        } else {
+            store.revive(slot, null, record); // still unchanged, so saved from its raw record
+            lazyCache.put(record, task);
+        }
+        index(task);
+    }
+
+    /**
+     * Sets whether a task is done, for undoing a mark or unmark.
+     */
+    private void restoreDone(Task task, boolean isDone) {
+        if (isDone) {
+            task.markDone();
+        } else {
+            task.markUndone();
+        }
+        dirtyTasks.add(task);
+    }
+
     /**
      * Adds a tag to a task at the specified index.
      *
@@ -242,15 +1214,24 @@ public class TaskList {
      * @throws FridayException If the index is out of range or tag is invalid.
      */
     public void tag(int idx, String tag) throws FridayException {
-        if (idx < 1 || idx > tasks.size()) {
+        if (idx < 1 || idx > size()) {
             throw new FridayException("That task number doesn't exist.");
         }
         if (tag == null || tag.trim().isEmpty()) {
             throw new FridayException("Please provide a tag to add.");
         }
+        if (!TagManager.isValid(tag)) {
+            throw new FridayException("Tags cannot contain spaces, '#' or '|'.");
+        }
 
-        if (tagManager != null) {
-            tagManager.addTag(idx, tag);
+        Task task = get(idx - 1);
+        materialise(idx - 1, task);
+        if (tagManager.addTag(task, tag)) {
+            dirtyTasks.add(task);
+            logUndo(() -> {
+                tagManager.removeTag(task, tag);
+                dirtyTasks.add(task);
+            });
         }
     }
 
@@ -262,19 +1243,24 @@ public class TaskList {
      * @throws FridayException If the index is out of range or tag is invalid.
      */
     public void untag(int idx, String tag) throws FridayException {
-        if (idx < 1 || idx > tasks.size()) {
+        if (idx < 1 || idx > size()) {
             throw new FridayException("That task number doesn't exist.");
         }
         if (tag == null || tag.trim().isEmpty()) {
             throw new FridayException("Please provide a tag to remove.");
         }
 
-        if (tagManager != null) {
-            if (!tagManager.hasTag(idx, tag)) {
-                throw new FridayException("Task does not have the tag '" + tag + "'.");
-            }
-            tagManager.removeTag(idx, tag);
+        Task task = get(idx - 1);
+        if (!tagManager.hasTag(task, tag)) {
+            throw new FridayException("Task does not have the tag '" + tag + "'.");
         }
+        materialise(idx - 1, task);
+        tagManager.removeTag(task, tag);
+        dirtyTasks.add(task);
+        logUndo(() -> {
+            tagManager.addTag(task, tag);
+            dirtyTasks.add(task);
+        });
     }
 
     /**
@@ -284,14 +1270,16 @@ public class TaskList {
      * @return The display string with tags.
      */
     public String getDisplayWithTags(int idx) {
-        Task task = get(idx);
-        String baseDisplay = task.display();
-
-        if (tagManager != null) {
-            String tagString = tagManager.getTagDisplayString(idx + 1); // Convert to 1-based
-            return baseDisplay + tagString;
-        }
+        return getDisplayWithTags(get(idx));
+    }
 
-        return baseDisplay;
+    /**
+     * Gets the display string for a task including tags.
+     *
+     * @param task The task.
+     * @return The display string with tags.
+     */
+    private String getDisplayWithTags(Task task) {
+        return task.display() + tagManager.getTagDisplayString(task);
     }
 }
@@ -0,0 +1,290 @@
+package friday;
+
+import java.util.Arrays;
+
+/**
+ * Slot array holding the tasks of a TaskList in the order they were added.
+ * Each slot holds a task (or, for a lazily loaded task, the number of its
+ * record in the lazy source) and the task's id, which increases along the
+ * slots. Deleting a task only turns its slot into a tombstone, so nothing is
+ * shifted; tombstones are squeezed out once they make up half of the slots.
+ * The 1-based numbers shown to the user are a view over the live slots,
+ * computed with a Fenwick tree of live-slot counts, so converting between a
+ * position and a slot takes O(log n).
+ */
+class TaskStore {
+    static final int NOT_LAZY = -1;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+
+    private Task[] tasks = new Task[16];
+    private int[] ids = new int[16];
+    private int[] lazyRecords = new int[16];
+    private boolean[] isLive = new boolean[16];
+    private int[] liveCounts = new int[17]; // Fenwick tree, 1-based
+    private int slotCount;
+    private int liveCount;
+    private boolean isCompactionSuspended;
+
+    /**
+     * Returns the number of live tasks.
+     *
+     * @return The number of tasks.
+     */
+    int size() {
+        return liveCount;
+    }
+
+    /**
+     * Appends an in-memory task in a new slot.
+     *
+     * @param task The task.
+     * @param id   The id of the task, greater than every id already stored.
+     */
+    void append(Task task, int id) {
+        appendSlot(task, id, NOT_LAZY);
+    }
+
+    /**
+     * Appends a lazily loaded task in a new slot.
+     *
+     * @param id     The id of the task, greater than every id already stored.
+     * @param record The number of the task's record in the lazy source.
+     */
+    void appendLazy(int id, int record) {
+        appendSlot(null, id, record);
+    }
+
+    /**
+     * Fills a new slot at the end of the array and counts it as live.
+     */
+    private void appendSlot(Task task, int id, int record) {
+        assert slotCount == 0 || id > ids[slotCount - 1] : "Ids should increase along the slots";
+
+        if (slotCount == tasks.length) {
+            resize(tasks.length * 2);
+        }
+        int slot = slotCount++;
+        tasks[slot] = task;
+        ids[slot] = id;
+        lazyRecords[slot] = record;
+        isLive[slot] = true;
+        liveCount++;
+
+        // A new last Fenwick node covers the live slots in (i - lowbit(i), i]
+        int i = slot + 1;
+        liveCounts[i] = 1 + prefixCount(i - 1) - prefixCount(i - (i & -i));
+    }
+
+    /**
+     * Turns the slot into a tombstone, compacting the slots if tombstones have
+     * built up. Unless compaction is suspended, any slot numbers held by the
+     * caller are invalid afterwards.
+     *
+     * @param slot The slot of a live task.
+     */
+    void remove(int slot) {
+        assert isLive[slot] : "Removed slot should be live";
+
+        isLive[slot] = false;
+        tasks[slot] = null;
+        lazyRecords[slot] = NOT_LAZY;
+        liveCount--;
+        for (int i = slot + 1; i <= slotCount; i += i & -i) {
+            liveCounts[i]--;
+        }
+
+        compactIfNeeded();
+    }
+
+    /**
+     * Brings a tombstoned slot back to life, for undoing a removal. Only
+     * possible while compaction is suspended, so the slot still exists.
+     *
+     * @param slot   The slot the task was removed from.
+     * @param task   The task, or null if it is held as a lazy record.
+     * @param record The lazy record of the task, or {@link #NOT_LAZY}.
+     */
+    void revive(int slot, Task task, int record) {
+        assert isCompactionSuspended : "Slots can only be revived while compaction is suspended";
+        assert slot < slotCount && !isLive[slot] : "Revived slot should be a tombstone";
+
+        isLive[slot] = true;
+        tasks[slot] = task;
+        lazyRecords[slot] = record;
+        liveCount++;
+        for (int i = slot + 1; i <= slotCount; i += i & -i) {
+            liveCounts[i]++;
+        }
+    }
+
+    /**
+     * Stops or resumes squeezing out tombstones. While suspended, slot numbers
+     * stay valid across removals, so removed slots can be revived.
+     *
+     * @param isSuspended Whether compaction should be suspended.
+     */
+    void setCompactionSuspended(boolean isSuspended) {
+        isCompactionSuspended = isSuspended;
+        compactIfNeeded();
+    }
+
+    /**
+     * Compacts the slots if tombstones make up half of them, unless
+     * compaction is suspended.
+     */
+    private void compactIfNeeded() {
+        int tombstones = slotCount - liveCount;
+        if (!isCompactionSuspended && tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones * 2 >= slotCount) {
+            compact();
+        }
+    }
+
+    /**
+     * Returns the slot of the task at a position.
+     *
+     * @param position The 0-based position among the live tasks.
+     * @return The slot.
+     */
+    int slotAt(int position) {
+        assert position >= 0 && position < liveCount : "Position should be within bounds";
+
+        // Descend the Fenwick tree to the slot holding the (position + 1)th live task
+        int slot = 0;
+        int remaining = position + 1;
+        for (int step = Integer.highestOneBit(tasks.length); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next <= slotCount && liveCounts[next] < remaining) {
+                slot = next;
+                remaining -= liveCounts[next];
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the position of the task in a slot.
+     *
+     * @param slot A live slot.
+     * @return The 0-based position among the live tasks.
+     */
+    int positionOf(int slot) {
+        return prefixCount(slot + 1) - 1;
+    }
+
+    /**
+     * Returns the slot of the task with the given id.
+     *
+     * @param id The task id.
+     * @return The slot, or -1 if no live task has that id.
+     */
+    int slotOfId(int id) {
+        int slot = Arrays.binarySearch(ids, 0, slotCount, id);
+        return slot >= 0 && isLive[slot] ? slot : -1;
+    }
+
+    /**
+     * Returns the first live slot after the given one, for walking the tasks
+     * in order.
+     *
+     * @param slot A slot, or -1 to start from the beginning.
+     * @return The next live slot, or -1 if there is none.
+     */
+    int nextSlot(int slot) {
+        for (int i = slot + 1; i < slotCount; i++) {
+            if (isLive[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the in-memory task in a slot.
+     *
+     * @param slot A live slot.
+     * @return The task, or null if it is only held as a lazy record.
+     */
+    Task getTask(int slot) {
+        return tasks[slot];
+    }
+
+    /**
+     * Keeps a task in memory in its slot, in place of its lazy record.
+     *
+     * @param slot A live slot.
+     * @param task The task in that slot.
+     */
+    void setTask(int slot, Task task) {
+        tasks[slot] = task;
+        lazyRecords[slot] = NOT_LAZY;
+    }
+
+    /**
+     * Returns the id of the task in a slot.
+     *
+     * @param slot A live slot.
+     * @return The task id.
+     */
+    int getId(int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * Returns the lazy record of the task in a slot.
+     *
+     * @param slot A live slot.
+     * @return The record number, or -1 if the task is held in memory.
+     */
+    int getLazyRecord(int slot) {
+        return lazyRecords[slot];
+    }
+
+    /**
+     * Returns the number of live slots up to and including slot i - 1.
+     */
+    private int prefixCount(int i) {
+        int count = 0;
+        for (; i > 0; i -= i & -i) {
+            count += liveCounts[i];
+        }
+        return count;
+    }
+
+    /**
+     * Moves the live slots to the front, dropping the tombstones.
+     */
+    private void compact() {
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (isLive[slot]) {
+                tasks[live] = tasks[slot];
+                ids[live] = ids[slot];
+                lazyRecords[live] = lazyRecords[slot];
+                isLive[live] = true;
+                live++;
+            }
+        }
+        Arrays.fill(tasks, live, slotCount, null);
+        Arrays.fill(isLive, live, slotCount, false);
+        slotCount = live;
+        resize(Math.max(16, Integer.highestOneBit(Math.max(1, live)) * 2));
+    }
+
+    /**
+     * Resizes the slot arrays and rebuilds the Fenwick tree.
+     */
+    private void resize(int capacity) {
+        tasks = Arrays.copyOf(tasks, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        lazyRecords = Arrays.copyOf(lazyRecords, capacity);
+        isLive = Arrays.copyOf(isLive, capacity);
+        liveCounts = new int[capacity + 1];
+        for (int i = 1; i <= slotCount; i++) {
+            liveCounts[i] += isLive[i - 1] ? 1 : 0;
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                liveCounts[parent] += liveCounts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package friday;
+
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+/**
+ * A table of tasks for lists too long to read in the chat. The table only
+ * creates rows for the visible tasks, and is meant to be fed a
+ * {@link PagedTaskList}, so only the tasks scrolled into view are fetched and
+ * formatted. Rows still being fetched are shown blank.
+ */
+public class TaskTable extends TableView<PagedTaskList.Row> {
+    private static final double NUMBER_WIDTH = 70.0;
+
+    /**
+     * Constructs an empty TaskTable with columns for the task number, the task
+     * and its tags.
+     */
+    public TaskTable() {
+        TableColumn<PagedTaskList.Row, Void> numberColumn = new TableColumn<>("#");
+        numberColumn.setCellFactory(column -> new NumberCell());
+        numberColumn.setSortable(false);
+        numberColumn.setPrefWidth(NUMBER_WIDTH);
+        numberColumn.setMaxWidth(NUMBER_WIDTH);
+
+        TableColumn<PagedTaskList.Row, String> taskColumn = new TableColumn<>("Task");
+        taskColumn.setCellValueFactory(row -> new ReadOnlyStringWrapper(
+                row.getValue() == null ? "" : row.getValue().task));
+        taskColumn.setSortable(false);
+
+        TableColumn<PagedTaskList.Row, String> tagColumn = new TableColumn<>("Tags");
+        tagColumn.setCellValueFactory(row -> new ReadOnlyStringWrapper(
+                row.getValue() == null ? "" : row.getValue().tags));
+        tagColumn.setSortable(false);
+
+        getColumns().add(numberColumn);
+        getColumns().add(taskColumn);
+        getColumns().add(tagColumn);
+        setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        setPlaceholder(new Label("There are no tasks in your list."));
+    }
+
+    /**
+     * A cell showing the 1-based number of its row, which is the number the
+     * task commands take.
+     */
+    private static class NumberCell extends TableCell<PagedTaskList.Row, Void> {
+        @Override
+        protected void updateItem(Void item, boolean isEmpty) {
+            super.updateItem(item, isEmpty);
+            setText(isEmpty ? null : String.valueOf(getIndex() + 1));
+        }
+    }
+}
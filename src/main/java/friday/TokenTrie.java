@@ -0,0 +1,190 @@
+package friday;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A trie over the lowercase words of task descriptions, with the ids of the
+ * tasks containing each word stored at the node where the word ends. Supports
+ * prefix lookups and lookups within a bounded edit distance, both of which
+ * only visit the part of the trie that can still match.
+ */
+class TokenTrie {
+    private final Node root = new Node();
+
+    /**
+     * Receives the ids of tasks matching a lookup, along with the cost of the
+     * match; lower costs are better matches. A task may be reported more than
+     * once if several of its words match.
+     */
+    interface MatchConsumer {
+        void accept(int id, int cost);
+    }
+
+    /**
+     * Adds every word of a description to the trie.
+     *
+     * @param id   The task id.
+     * @param text The task description.
+     */
+    void add(int id, String text) {
+        for (String word : words(text)) {
+            Node node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.getOrCreateChild(word.charAt(i));
+            }
+            if (node.ids == null) {
+                node.ids = new SearchIndex.Postings();
+            }
+            node.ids.add(id);
+        }
+    }
+
+    /**
+     * Drops the ids of removed tasks from every word.
+     *
+     * @param liveIds The ids to keep.
+     */
+    void retainAll(BitSet liveIds) {
+        retainAll(root, liveIds);
+    }
+
+    /**
+     * Drops the ids not in the set from the words below a node.
+     */
+    private void retainAll(Node node, BitSet liveIds) {
+        if (node.ids != null) {
+            node.ids.retainAll(liveIds);
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            retainAll(node.children[i], liveIds);
+        }
+    }
+
+    /**
+     * Finds the tasks containing a word that starts with the given prefix. A
+     * word equal to the prefix costs 0 and any longer word costs 1.
+     *
+     * @param prefix   The lowercase prefix.
+     * @param consumer Receives the matching ids.
+     */
+    void findPrefix(String prefix, MatchConsumer consumer) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.getChild(prefix.charAt(i));
+        }
+        if (node != null) {
+            collect(node, 0, consumer);
+        }
+    }
+
+    /**
+     * Reports the ids of every word below a node.
+     */
+    private void collect(Node node, int cost, MatchConsumer consumer) {
+        if (node.ids != null) {
+            node.ids.forEach(id -> consumer.accept(id, cost));
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            collect(node.children[i], 1, consumer);
+        }
+    }
+
+    /**
+     * Finds the tasks containing a word within the given edit distance of the
+     * term. The cost of a match is its edit distance.
+     *
+     * @param term        The lowercase term.
+     * @param maxDistance The largest number of single-character insertions,
+     *                    deletions and substitutions allowed.
+     * @param consumer    Receives the matching ids.
+     */
+    void findFuzzy(String term, int maxDistance, MatchConsumer consumer) {
+        int[] row = new int[term.length() + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = i;
+        }
+        for (int i = 0; i < root.childCount; i++) {
+            findFuzzy(root.children[i], root.keys[i], term, row, maxDistance, consumer);
+        }
+    }
+
+    /**
+     * Extends the edit distance table by one character for a node, following
+     * its children only while some alignment can stay within the distance.
+     */
+    private void findFuzzy(Node node, char c, String term, int[] previousRow, int maxDistance,
+            MatchConsumer consumer) {
+        int[] row = new int[previousRow.length];
+        row[0] = previousRow[0] + 1;
+        int rowMin = row[0];
+        for (int i = 1; i < row.length; i++) {
+            int substitution = previousRow[i - 1] + (term.charAt(i - 1) == c ? 0 : 1);
+            row[i] = Math.min(substitution, Math.min(row[i - 1], previousRow[i]) + 1);
+            rowMin = Math.min(rowMin, row[i]);
+        }
+
+        int distance = row[row.length - 1];
+        if (distance <= maxDistance && node.ids != null) {
+            node.ids.forEach(id -> consumer.accept(id, distance));
+        }
+        if (rowMin <= maxDistance) {
+            for (int i = 0; i < node.childCount; i++) {
+                findFuzzy(node.children[i], node.keys[i], term, row, maxDistance, consumer);
+            }
+        }
+    }
+
+    /**
+     * Splits a description into lowercase words of letters and digits.
+     *
+     * @param text The description.
+     * @return The words, which may contain duplicates.
+     */
+    static String[] words(String text) {
+        String[] words = text.toLowerCase().split("[^\\p{L}\\p{N}]+");
+        if (words.length > 0 && words[0].isEmpty()) {
+            return Arrays.copyOfRange(words, 1, words.length);
+        }
+        return words;
+    }
+
+    /**
+     * A trie node. Children are kept in small parallel arrays, since most
+     * nodes have only a few.
+     */
+    private static class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+        private SearchIndex.Postings ids;
+
+        Node getChild(char c) {
+            for (int i = 0; i < childCount; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node getOrCreateChild(char c) {
+            Node child = getChild(c);
+            if (child == null) {
+                if (childCount == keys.length) {
+                    int capacity = Math.max(2, childCount * 2);
+                    keys = Arrays.copyOf(keys, capacity);
+                    children = Arrays.copyOf(children, capacity);
+                }
+                child = new Node();
+                keys[childCount] = c;
+                children[childCount] = child;
+                childCount++;
+            }
+            return child;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package friday;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Scanner;
 
 /**
@@ -11,6 +14,7 @@ public class Ui {
     // into a Ui class
     private static final String IND = "____________________________________________________________";
     private static final Scanner in = new Scanner(System.in);
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
 
     /**
      * Prints the greeting message.
@@ -76,6 +80,17 @@ public class Ui {
         printIndent();
     }
 
+    /**
+     * Returns a buffered writer to standard output, so that long replies can
+     * be written as they are produced instead of being built up first. It
+     * must be flushed, but not closed.
+     *
+     * @return The writer.
+     */
+    public static Writer newOutputWriter() {
+        return new BufferedWriter(new OutputStreamWriter(System.out), OUTPUT_BUFFER_SIZE);
+    }
+
     /**
      * Prints an error message.
      */
@@ -0,0 +1,37 @@
+package friday;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChannelLineReaderTest {
+    @Test
+    public void testLinesAcrossReadsAndLongLines() throws IOException {
+        Path file = Files.createTempDirectory("friday").resolve("duke.txt");
+        StringBuilder data = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            expected.add("T | 0 | Task " + i);
+        }
+        expected.add("T | 0 | " + "x".repeat(3 * 1024 * 1024)); // longer than the buffer
+        expected.add("T | 0 | Last");
+        for (String line : expected) {
+            data.append("  ").append(line).append("\r\n\n");
+        }
+        Files.writeString(file, data.toString().trim());
+        byte[] bytes = Files.readAllBytes(file);
+
+        List<String> lines = new ArrayList<>();
+        ChannelLineReader.forEachLineRange(file, (offset, length, line) -> {
+            assertEquals(line, new String(bytes, (int) offset, length, StandardCharsets.UTF_8));
+            lines.add(line);
+        });
+        assertEquals(expected, lines);
+    }
+}
@@ -0,0 +1,48 @@
+package friday;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChatHistoryTest {
+    @Test
+    public void testRepliesFollowTheirCommands() {
+        List<ChatHistory.Message> messages = new ArrayList<>();
+        ChatHistory history = new ChatHistory(messages, null, Runnable::run);
+        ChatHistory.Message first = new ChatHistory.Message("list", true);
+        ChatHistory.Message second = new ChatHistory.Message("list", true);
+        history.add(first);
+        history.add(second);
+
+        ChatHistory.Message placeholder = new ChatHistory.Message("...", false);
+        history.addAfter(first, placeholder);
+        history.addAfter(second, new ChatHistory.Message("reply 2", false));
+        history.replace(placeholder, new ChatHistory.Message("reply 1", false));
+
+        assertEquals(4, history.size());
+        assertEquals("reply 1", messages.get(1).text);
+        assertEquals("reply 2", messages.get(3).text);
+    }
+
+    @Test
+    public void testOldMessagesMoveToTranscript() throws IOException {
+        Path transcript = Files.createTempDirectory("friday").resolve("transcript.txt");
+        List<ChatHistory.Message> messages = new ArrayList<>();
+        ChatHistory history = new ChatHistory(messages, transcript, Runnable::run);
+        for (int i = 0; i <= ChatHistory.MAX_MESSAGES; i++) {
+            history.add(new ChatHistory.Message("message " + i, i % 2 == 0));
+        }
+
+        assertEquals(ChatHistory.MAX_MESSAGES + 1 - ChatHistory.TRIM_CHUNK, history.size());
+        assertEquals("message " + ChatHistory.TRIM_CHUNK, messages.get(0).text);
+        List<String> lines = Files.readAllLines(transcript);
+        assertEquals(ChatHistory.TRIM_CHUNK, lines.size());
+        assertEquals("> message 0", lines.get(0));
+        assertEquals("message 1", lines.get(1));
+    }
+}
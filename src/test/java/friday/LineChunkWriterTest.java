@@ -0,0 +1,26 @@
+package friday;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineChunkWriterTest {
+    @Test
+    public void testSplitsIntoChunksOfLines() throws FridayException, java.io.IOException {
+        TaskList taskList = new TaskList();
+        for (int i = 1; i <= 5; i++) {
+            taskList.addTodo("Task " + i);
+        }
+        List<String> chunks = new ArrayList<>();
+        LineChunkWriter writer = new LineChunkWriter(2, chunks::add);
+        taskList.list(writer);
+        assertEquals(2, chunks.size(), "Full chunks should be handed on while writing");
+
+        writer.close();
+        assertEquals(List.of("Here are the tasks in your list:\n 1.[T][ ] Task 1",
+                " 2.[T][ ] Task 2\n 3.[T][ ] Task 3", " 4.[T][ ] Task 4\n 5.[T][ ] Task 5"), chunks);
+        assertEquals(String.join("\n", chunks), taskList.list());
+    }
+}
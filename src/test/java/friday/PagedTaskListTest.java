@@ -0,0 +1,64 @@
+package friday;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedTaskListTest {
+    @Test
+    public void testFetchesOnlyAccessedPages() throws FridayException {
+        TaskList taskList = new TaskList();
+        for (int i = 1; i <= 1000; i++) {
+            taskList.addTodo("Task " + i);
+        }
+        List<Integer> fetched = new ArrayList<>();
+        PagedTaskList rows = new PagedTaskList(taskList.size(), (offset, limit) -> {
+            fetched.add(offset);
+            return PagedTaskList.Row.of(taskList.getPage(offset, limit));
+        }, Runnable::run, Runnable::run);
+
+        assertEquals(1000, rows.size());
+        assertEquals("[T][ ] Task 1", rows.get(0).task);
+        assertEquals("[T][ ] Task 450", rows.get(449).task);
+        assertEquals("[T][ ] Task 2", rows.get(1).task);
+        assertEquals(List.of(0, 2 * PagedTaskList.PAGE_SIZE), fetched);
+    }
+
+    @Test
+    public void testShrunkListGivesNull() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        PagedTaskList rows = new PagedTaskList(2, (offset, limit) -> PagedTaskList.Row.of(
+                taskList.getPage(offset, limit)), Runnable::run, Runnable::run);
+
+        assertNull(rows.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> rows.get(2));
+    }
+
+    @Test
+    public void testRowsArriveAfterFetch() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        taskList.tag(1, "fun");
+        Deque<Runnable> fetches = new ArrayDeque<>();
+        Deque<Runnable> published = new ArrayDeque<>();
+        PagedTaskList rows = new PagedTaskList(1, (offset, limit) -> PagedTaskList.Row.of(
+                taskList.getPage(offset, limit)), fetches::add, published::add);
+
+        assertNull(rows.get(0));
+        assertNull(rows.get(0));
+        assertEquals(1, fetches.size());
+
+        fetches.remove().run();
+        taskList.get(0).markDone(); // rows are snapshots taken when fetched
+        assertNull(rows.get(0));
+        published.remove().run();
+        assertEquals("[T][ ] Task 1", rows.get(0).task);
+        assertEquals("#fun", rows.get(0).tags);
+        assertTrue(fetches.isEmpty());
+    }
+}
@@ -71,6 +71,44 @@ public class ParserTest {
         assertEquals("12pm", ((Event) task).getTo());
     }
 
+    @Test
+    public void testParseSerializedTaskEventMissingTimes() {
+        Event fromOnly = (Event) Parser.parseSerializedTask("E | 0 | project meeting | Mon 2pm || ");
+        assertEquals("Mon 2pm", fromOnly.getFrom());
+        assertEquals("", fromOnly.getTo());
+
+        Event empty = (Event) Parser.parseSerializedTask("E | 0 | prepare slides |  || ");
+        assertEquals("prepare slides", empty.getDesc());
+        assertEquals("", empty.getFrom());
+        assertEquals("", empty.getTo());
+    }
+
+    @Test
+    public void testParseSerializedTaskInvalidDate() {
+        assertNull(Parser.parseSerializedTask("D | 0 | Submit report | 2023-13-15"));
+        assertNull(Parser.parseSerializedTask("D | 0 | Submit report | tomorrow"));
+    }
+
+    @Test
+    public void testParseSerializedTaskMissingDescription() {
+        assertNull(Parser.parseSerializedTask("T | 0"));
+        assertNull(Parser.parseSerializedTask("T | 0 | "));
+    }
+
+    @Test
+    public void testParseSerializedTaskTags() {
+        Task todo = Parser.parseSerializedTask("T | 0 | Read book |  | #fun #Later");
+        assertEquals(java.util.Set.of("fun", "later"), todo.getTags());
+
+        Deadline deadline = (Deadline) Parser.parseSerializedTask("D | 0 | Submit | 2025-10-15 | #work");
+        assertEquals(java.time.LocalDate.of(2025, 10, 15), deadline.getBy());
+        assertEquals(java.util.Set.of("work"), deadline.getTags());
+
+        Event event = (Event) Parser.parseSerializedTask("E | 0 | Meet | 1pm || 2pm | #team");
+        assertEquals("2pm", event.getTo());
+        assertEquals(java.util.Set.of("team"), event.getTags());
+    }
+
     @Test
     public void testParseSerializedTaskMalformed() {
         Task task = Parser.parseSerializedTask("invalid");
@@ -113,4 +151,120 @@ public class ParserTest {
     public void testParseIndexZero() {
         assertThrows(FridayException.class, () -> Parser.parseIndex("0"));
     }
+
+    @Test
+    public void testParseTagFilter() throws FridayException {
+        Parser.TagFilter filter = Parser.parseTagFilter("#a #b or not #c");
+        assertEquals(2, filter.groups.size());
+        assertEquals(2, filter.groups.get(0).size());
+        assertEquals("c", filter.groups.get(1).get(0).tag);
+        assertTrue(filter.groups.get(1).get(0).isNegated);
+    }
+
+    @Test
+    public void testParseTagFilterInvalid() {
+        assertThrows(FridayException.class, () -> Parser.parseTagFilter(""));
+        assertThrows(FridayException.class, () -> Parser.parseTagFilter("or #a"));
+        assertThrows(FridayException.class, () -> Parser.parseTagFilter("#a not"));
+        assertThrows(FridayException.class, () -> Parser.parseTagFilter("#a and #"));
+    }
+
+    @Test
+    public void testParseKeywordQuery() throws FridayException {
+        Parser.KeywordQuery query = Parser.parseKeywordQuery("Buy and mi* or ~bread");
+        assertEquals(2, query.groups.size());
+        assertEquals("buy", query.groups.get(0).get(0).text);
+        assertEquals("mi", query.groups.get(0).get(1).text);
+        assertEquals(Parser.KeywordMode.PREFIX, query.groups.get(0).get(1).mode);
+        assertEquals("bread", query.groups.get(1).get(0).text);
+        assertEquals(Parser.KeywordMode.FUZZY, query.groups.get(1).get(0).mode);
+        assertThrows(FridayException.class, () -> Parser.parseKeywordQuery("milk or"));
+        assertThrows(FridayException.class, () -> Parser.parseKeywordQuery("~milk*"));
+        assertThrows(FridayException.class, () -> Parser.parseKeywordQuery("*"));
+    }
+
+    @Test
+    public void testParseDateRange() throws FridayException {
+        java.time.LocalDate today = java.time.LocalDate.of(2025, 10, 5);
+        Parser.DateRange range = Parser.parseDateRange("today 2025-10-31", today);
+        assertEquals(today, range.from);
+        assertEquals(java.time.LocalDate.of(2025, 10, 31), range.to);
+        assertThrows(FridayException.class, () -> Parser.parseDateRange("2025-10-31", today));
+        assertThrows(FridayException.class, () -> Parser.parseDateRange("2025-10-31 today", today));
+        assertThrows(FridayException.class, () -> Parser.parseQueryDate("31/10/2025", today));
+    }
+
+    @Test
+    public void testParseEventTimes() throws FridayException {
+        Event event = (Event) Parser.parseSerializedTask("E | 0 | Night shift | 2025-10-15 2200 || 0600");
+        assertEquals(java.time.LocalDateTime.of(2025, 10, 15, 22, 0), event.getStart());
+        assertEquals(java.time.LocalDateTime.of(2025, 10, 16, 6, 0), event.getEnd());
+
+        Event legacy = new Event("Meeting", "10am", "12pm");
+        assertNull(legacy.getStart());
+        assertEquals("[E][ ] Meeting (from: 10am to: 12pm)", legacy.display());
+
+        assertThrows(FridayException.class, () -> Parser.parseEventArgs("Bad /from 2025-13-01 /to 2025-13-02"));
+        assertThrows(FridayException.class,
+                () -> Parser.parseEventArgs("Backwards /from 2025-10-15 /to 2025-10-14"));
+
+        Parser.EventArgs sameDay = Parser.parseEventArgs("Meet /from 2025-10-15 1400 /to 2025-10-15");
+        assertEquals("2025-10-15", sameDay.to);
+        assertEquals(java.time.LocalDateTime.of(2025, 10, 16, 0, 0),
+                new Event(sameDay.description, sameDay.from, sameDay.to).getEnd());
+    }
+
+    @Test
+    public void testParseTimeRange() throws FridayException {
+        java.time.LocalDate today = java.time.LocalDate.of(2025, 10, 15);
+        Parser.TimeRange day = Parser.parseTimeRange("today", today);
+        assertEquals(java.time.LocalDateTime.of(2025, 10, 15, 0, 0), day.from);
+        assertEquals(java.time.LocalDateTime.of(2025, 10, 16, 0, 0), day.to);
+
+        Parser.TimeRange hours = Parser.parseTimeRange("2025-10-15 09:00 /to 1130", today);
+        assertEquals(java.time.LocalDateTime.of(2025, 10, 15, 11, 30), hours.to);
+        assertThrows(FridayException.class, () -> Parser.parseTimeRange("tomorrow", today));
+    }
+
+    @Test
+    public void testParseIndices() throws FridayException {
+        assertArrayEquals(new int[] {3, 7, 9, 10, 11}, Parser.parseIndices("9-11, 3,7,10"));
+        assertArrayEquals(new int[] {4}, Parser.parseIndices("4"));
+        assertThrows(FridayException.class, () -> Parser.parseIndices("5-3"));
+        assertThrows(FridayException.class, () -> Parser.parseIndices("1,,2"));
+        assertThrows(FridayException.class, () -> Parser.parseIndices("1-"));
+        assertThrows(FridayException.class, () -> Parser.parseIndices("1-2000000"));
+        assertThrows(FridayException.class, () -> Parser.parseIndices("1-900000,1000001-1900000"));
+        assertArrayEquals(new int[] {2, 2147483646, 2147483647}, Parser.parseIndices("2147483646-2147483647,2"));
+    }
+
+    @Test
+    public void testParseQuery() throws FridayException {
+        java.time.LocalDate today = java.time.LocalDate.of(2026, 10, 18);
+        Deadline report = new Deadline("Report", java.time.LocalDate.of(2026, 10, 30));
+        report.addTag("ops");
+        Deadline taxes = new Deadline("Taxes", java.time.LocalDate.of(2026, 12, 1));
+        taxes.addTag("ops");
+        ToDo chores = new ToDo("Chores");
+        chores.markDone();
+
+        java.util.function.Predicate<Task> query =
+                Parser.parseQuery("where tag:ops and due < 2026-11-01", today);
+        assertTrue(query.test(report));
+        assertFalse(query.test(taxes));
+        assertFalse(query.test(chores));
+
+        query = Parser.parseQuery("where done or (deadline not #ops) or due>=today desc:tax", today);
+        assertTrue(query.test(chores));
+        assertTrue(query.test(taxes));
+        assertFalse(query.test(report));
+
+        assertTrue(Parser.isQuery("WHERE done"));
+        assertFalse(Parser.isQuery("whereabouts"));
+        assertThrows(FridayException.class, () -> Parser.parseQuery("where", today));
+        assertThrows(FridayException.class, () -> Parser.parseQuery("where done or", today));
+        assertThrows(FridayException.class, () -> Parser.parseQuery("where (done", today));
+        assertThrows(FridayException.class, () -> Parser.parseQuery("where colour:red", today));
+        assertThrows(FridayException.class, () -> Parser.parseQuery("where due~2026-01-01", today));
+    }
 }
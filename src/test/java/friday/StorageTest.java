@@ -0,0 +1,474 @@
+package friday;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class StorageTest {
+
+    @Test
+    public void testSaveAndLoad() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Read book");
+        taskList.addDeadline("Submit report", java.time.LocalDate.of(2025, 10, 15));
+        taskList.addEvent("Meeting", "10am", "12pm");
+        taskList.mark(2);
+        new Storage(dataFile, taskList).save();
+
+        TaskList loaded = new TaskList();
+        new Storage(dataFile, loaded).load();
+        assertEquals(taskList.list(), loaded.list());
+    }
+
+    @Test
+    public void testJournalReplay() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        Storage storage = new Storage(dataFile, taskList);
+        storage.setJournaled(true);
+
+        taskList.addTodo("Task 1");
+        storage.recordAdd(taskList.get(0));
+        taskList.addTodo("Task 2");
+        storage.recordAdd(taskList.get(1));
+        taskList.mark(2);
+        storage.recordMark(2);
+        taskList.delete(1);
+        storage.recordDelete(1);
+
+        assertFalse(Files.exists(dataFile), "Journaled mutations should not rewrite the snapshot");
+
+        TaskList loaded = new TaskList();
+        new Storage(dataFile, loaded).load();
+        assertEquals(1, loaded.size());
+        assertEquals("Task 2", loaded.get(0).getDesc());
+        assertTrue(loaded.get(0).checkDone());
+    }
+
+    @Test
+    public void testJournalCompaction() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        Storage storage = new Storage(dataFile, taskList);
+        storage.setJournaled(true);
+
+        taskList.addTodo("Task 1");
+        storage.recordAdd(taskList.get(0));
+        storage.save();
+        taskList.unmark(1);
+        storage.recordUnmark(1);
+
+        assertTrue(Files.exists(dataFile));
+        TaskList loaded = new TaskList();
+        new Storage(dataFile, loaded).load();
+        assertEquals(taskList.list(), loaded.list());
+    }
+
+    @Test
+    public void testLoadSkipsBlankAndWindowsLines() throws IOException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        Files.writeString(dataFile, "T | 0 | Read book\r\n\r\n  \nD | 1 | Submit | 2025-10-15\r\nE | 0 | Meet | 1pm || 2pm");
+
+        TaskList loaded = new TaskList();
+        new Storage(dataFile, loaded).load();
+        assertEquals(3, loaded.size());
+        assertEquals("Read book", loaded.get(0).getDesc());
+        assertTrue(loaded.get(1).checkDone());
+        assertEquals("2pm", ((Event) loaded.get(2)).getTo());
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException, FridayException {
+        Path dir = Files.createTempDirectory("friday");
+        Path textFile = dir.resolve("duke.txt");
+        Path binaryFile = dir.resolve("duke.bin");
+        Path convertedFile = dir.resolve("converted.txt");
+        Files.writeString(textFile, "T | 1 | Read book\nD | 0 | Submit | 2025-10-15\nD | 0 | Someday\n"
+                + "E | 0 | Meet | 1pm || 2pm\nE | 1 | Caf\u00e9 | Mon 2pm || \n");
+
+        Storage.convert(textFile, binaryFile);
+        Storage.convert(binaryFile, convertedFile);
+
+        TaskList fromText = new TaskList();
+        new Storage(textFile, fromText).load();
+        TaskList fromBinary = new TaskList();
+        new Storage(binaryFile, fromBinary).load();
+        assertEquals(5, fromBinary.size());
+        assertEquals(fromText.list(), fromBinary.list());
+        assertEquals(Files.readAllLines(textFile), Files.readAllLines(convertedFile));
+    }
+
+    @Test
+    public void testAsyncSaveFlush() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        Storage storage = new Storage(dataFile, taskList);
+        storage.setAsync(true);
+
+        for (int i = 1; i <= 50; i++) {
+            synchronized (taskList) {
+                taskList.addTodo("Task " + i);
+            }
+            storage.save();
+        }
+        storage.close();
+
+        TaskList loaded = new TaskList();
+        new Storage(dataFile, loaded).load();
+        assertEquals(50, loaded.size());
+        assertEquals("Task 50", loaded.get(49).getDesc());
+    }
+
+    @Test
+    public void testAsyncJournalCompactionKeepsLaterRecords() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        Storage storage = new Storage(dataFile, taskList);
+        storage.setJournaled(true);
+        storage.setAsync(true);
+
+        for (int i = 1; i <= 2500; i++) {
+            synchronized (taskList) {
+                taskList.addTodo("Task " + i);
+                storage.recordAdd(taskList.get(taskList.size() - 1));
+            }
+        }
+        storage.close();
+
+        TaskList loaded = new TaskList();
+        new Storage(dataFile, loaded).load();
+        assertEquals(2500, loaded.size());
+        assertEquals("Task 2500", loaded.get(2499).getDesc());
+    }
+
+    @Test
+    public void testAtomicSaveLeavesNoTempFile() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        Files.writeString(dataFile, "T | 0 | Old task\n");
+        TaskList taskList = new TaskList();
+        taskList.addTodo("New task");
+        Storage storage = new Storage(dataFile, taskList);
+        storage.setFsyncPolicy(FsyncPolicy.ALWAYS);
+        storage.save();
+
+        assertFalse(Files.exists(dataFile.resolveSibling("duke.txt.tmp")));
+        assertEquals(java.util.List.of("T | 0 | New task"), Files.readAllLines(dataFile));
+    }
+
+    @Test
+    public void testParseFsyncPolicy() {
+        assertEquals(FsyncPolicy.NEVER, FsyncPolicy.parse("never", FsyncPolicy.BATCHED));
+        assertEquals(FsyncPolicy.ALWAYS, FsyncPolicy.parse(" Always ", FsyncPolicy.BATCHED));
+        assertEquals(FsyncPolicy.BATCHED, FsyncPolicy.parse("sometimes", FsyncPolicy.BATCHED));
+        assertEquals(FsyncPolicy.BATCHED, FsyncPolicy.parse(null, FsyncPolicy.BATCHED));
+    }
+
+    @Test
+    public void testIncrementalSaveReencodesChangedTasks() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        taskList.addTodo("Task 2");
+        taskList.addTodo("Task 3");
+        Storage storage = new Storage(dataFile, taskList);
+        storage.save();
+
+        taskList.mark(2);
+        taskList.delete(1);
+        taskList.addTodo("Task 4");
+        storage.save();
+
+        assertEquals(java.util.List.of("T | 1 | Task 2", "T | 0 | Task 3", "T | 0 | Task 4"),
+                Files.readAllLines(dataFile));
+    }
+
+    @Test
+    public void testLazyLoad() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        Files.writeString(dataFile, "T | 0 | Task 1\nD | 1 | Task 2 | 2025-10-15\n\nE | 0 | Task 3 | 1pm || 2pm\n");
+        TaskList taskList = new TaskList();
+        Storage storage = new Storage(dataFile, taskList);
+        storage.setLazy(true);
+        storage.load();
+
+        assertEquals(3, taskList.size());
+        assertNull(taskList.getIfMaterialised(1));
+        assertEquals("Task 2", taskList.get(1).getDesc());
+        assertTrue(taskList.get(1).checkDone());
+
+        taskList.mark(3);
+        taskList.delete(1);
+        taskList.addTodo("Task 4");
+        storage.save();
+
+        assertEquals(java.util.List.of("D | 1 | Task 2 | 2025-10-15", "E | 1 | Task 3 | 1pm || 2pm",
+                "T | 0 | Task 4"), Files.readAllLines(dataFile));
+        assertEquals("Here are the matching tasks in your list:\n 1.[E][X] Task 3 (from: 1pm to: 2pm)",
+                taskList.find("task 3"));
+    }
+
+    @Test
+    public void testCorruptBinaryLengthsAreRejected() throws IOException {
+        Path binaryFile = Files.createTempDirectory("friday").resolve("duke.bin");
+        byte[][] lengths = {
+            { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F }, // negative
+            { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 }, // far too large
+            { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01 }, // longer than an int
+        };
+        for (byte[] length : lengths) {
+            java.io.ByteArrayOutputStream data = new java.io.ByteArrayOutputStream();
+            data.write(new byte[] { 'F', 'R', 'D', 'B', 2, 'T', 0 });
+            data.write(length);
+            Files.write(binaryFile, data.toByteArray());
+
+            assertThrows(IOException.class, () -> BinaryTaskCodec.readAll(binaryFile, task -> { }));
+            TaskList taskList = new TaskList();
+            new Storage(binaryFile, taskList).load();
+            assertEquals(0, taskList.size());
+        }
+    }
+
+    @Test
+    public void testLazyLoadSkipsMalformedRecords() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        Files.writeString(dataFile, "T | 0 | Task 1\ngarbage\nT | 0 | Task 2\n");
+        for (boolean isLazy : new boolean[] { false, true }) {
+            TaskList taskList = new TaskList();
+            Storage storage = new Storage(dataFile, taskList);
+            storage.setLazy(isLazy);
+            storage.load();
+
+            assertEquals(2, taskList.size());
+            assertEquals("Task 2", taskList.get(1).getDesc());
+        }
+    }
+
+    @Test
+    public void testLazyEventsEvictedBeforeIndexingAreIndexedOnce() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        StringBuilder data = new StringBuilder("E | 0 | Standup | 2025-10-15 0900 || 1000\n"
+                + "E | 0 | Review | 2025-10-15 0930 || 1030\n");
+        for (int i = 0; i < 5000; i++) {
+            data.append("T | 0 | Task ").append(i).append("\n");
+        }
+        Files.writeString(dataFile, data);
+        TaskList taskList = new TaskList();
+        Storage storage = new Storage(dataFile, taskList);
+        storage.setLazy(true);
+        storage.load();
+
+        taskList.get(0);
+        for (int i = 2; i < taskList.size(); i++) {
+            taskList.get(i); // evicts the events from the cache
+        }
+        assertEquals("Here are the clashing events in your list:"
+                + "\n 1.[E][ ] Standup (from: 2025-10-15 0900 to: 1000)"
+                + "\n    clashes with 2.[E][ ] Review (from: 2025-10-15 0930 to: 1030)",
+                taskList.findConflicts());
+
+        taskList.delete(1);
+        assertEquals("None of your events clash.", taskList.findConflicts());
+    }
+
+    @Test
+    public void testPunctuatedTagsRoundTrip() throws IOException, FridayException {
+        Path dir = Files.createTempDirectory("friday");
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Read book");
+        taskList.tag(1, "c++");
+        taskList.tag(1, "q4-plan");
+        taskList.tag(1, "to:do");
+
+        for (String name : new String[] { "duke.txt", "duke.bin" }) {
+            new Storage(dir.resolve(name), taskList).save();
+            TaskList loaded = new TaskList();
+            new Storage(dir.resolve(name), loaded).load();
+            assertEquals(taskList.get(0).getTags(), loaded.get(0).getTags());
+            assertEquals(taskList.list(), loaded.list());
+        }
+    }
+
+    @Test
+    public void testTagsPersistWithTasks() throws IOException, FridayException {
+        Path dir = Files.createTempDirectory("friday");
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Read book");
+        taskList.addDeadline("Submit", null);
+        taskList.addEvent("Meet", "1pm", "2pm");
+        taskList.tag(1, "fun");
+        taskList.tag(2, "work");
+        taskList.tag(3, "team");
+        taskList.tag(3, "urgent");
+
+        for (String name : new String[] { "duke.txt", "duke.bin" }) {
+            new Storage(dir.resolve(name), taskList).save();
+            TaskList loaded = new TaskList();
+            new Storage(dir.resolve(name), loaded).load();
+            assertEquals(taskList.list(), loaded.list());
+        }
+    }
+
+    @Test
+    public void testMigrateLegacyTags() throws IOException, FridayException {
+        Path dir = Files.createTempDirectory("friday");
+        Path tagFile = dir.resolve("tags.txt");
+        Files.writeString(tagFile, "2:work,Urgent\n9:gone\n");
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        taskList.addTodo("Task 2");
+
+        assertEquals(2, taskList.getTagManager().migrateLegacyTags(tagFile, taskList));
+        assertEquals("[T][ ] Task 2 #work #urgent", taskList.getDisplayWithTags(1));
+        assertFalse(Files.exists(tagFile));
+    }
+
+    @Test
+    public void testJournalTagReplay() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        Storage storage = new Storage(dataFile, taskList);
+        storage.setJournaled(true);
+
+        taskList.addTodo("Task 1");
+        storage.recordAdd(taskList.get(0));
+        taskList.tag(1, "Work");
+        storage.recordTag(1, "Work");
+        taskList.tag(1, "fun");
+        storage.recordTag(1, "fun");
+        taskList.untag(1, "work");
+        storage.recordUntag(1, "work");
+
+        TaskList loaded = new TaskList();
+        new Storage(dataFile, loaded).load();
+        assertEquals("[T][ ] Task 1 #fun", loaded.getDisplayWithTags(0));
+    }
+
+    @Test
+    public void testDeferredTagSaves() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        Storage storage = new Storage(dataFile, taskList);
+        storage.save();
+        storage.setDeferTagSaves(true);
+
+        taskList.tag(1, "work");
+        storage.recordTag(1, "work");
+        assertEquals(java.util.List.of("T | 0 | Task 1"), Files.readAllLines(dataFile));
+
+        storage.flush();
+        assertEquals(java.util.List.of("T | 0 | Task 1 |  | #work"), Files.readAllLines(dataFile));
+        storage.close();
+    }
+
+    @Test
+    public void testBatchedTagsAreDeferred() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        taskList.addTodo("Task 2");
+        Storage storage = new Storage(dataFile, taskList);
+        storage.save();
+        storage.setDeferTagSaves(true);
+
+        storage.beginBatch();
+        taskList.tagAll(new int[] {1, 2}, "work");
+        storage.recordTag(1, "work");
+        storage.recordTag(2, "work");
+        storage.endBatch();
+        assertEquals(java.util.List.of("T | 0 | Task 1", "T | 0 | Task 2"), Files.readAllLines(dataFile));
+
+        storage.beginBatch();
+        taskList.mark(1);
+        storage.recordTag(2, "work");
+        storage.recordMark(1);
+        storage.endBatch();
+        assertEquals(java.util.List.of("T | 1 | Task 1 |  | #work", "T | 0 | Task 2 |  | #work"),
+                Files.readAllLines(dataFile));
+        storage.close();
+    }
+
+    @Test
+    public void testConcurrentSavesKeepNewestSnapshot() throws Exception {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        Storage storage = new Storage(dataFile, taskList);
+        Thread idleSaver = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                storage.save();
+            }
+        });
+        java.io.PrintStream stdout = System.out;
+        java.io.ByteArrayOutputStream warnings = new java.io.ByteArrayOutputStream();
+        System.setOut(new java.io.PrintStream(warnings, true));
+        try {
+            idleSaver.start();
+            for (int i = 1; i <= 200; i++) {
+                synchronized (taskList) {
+                    taskList.addTodo("Task " + i);
+                }
+                storage.save();
+            }
+            idleSaver.join();
+        } finally {
+            System.setOut(stdout);
+        }
+
+        assertEquals("", warnings.toString());
+        TaskList loaded = new TaskList();
+        new Storage(dataFile, loaded).load();
+        assertEquals(200, loaded.size());
+    }
+
+    @Test
+    public void testBatchIsPersistedOnce() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        Storage storage = new Storage(dataFile, taskList);
+        storage.setJournaled(true);
+
+        storage.beginBatch();
+        for (int i = 1; i <= 5; i++) {
+            taskList.addTodo("Task " + i);
+            storage.recordAdd(taskList.get(i - 1));
+        }
+        assertFalse(Files.exists(dataFile.resolveSibling("duke.txt.journal")),
+                "Records should be held until the batch ends");
+        taskList.deleteAll(new int[] {2, 4});
+        storage.recordDelete(4);
+        storage.recordDelete(2);
+        storage.endBatch();
+
+        TaskList loaded = new TaskList();
+        new Storage(dataFile, loaded).load();
+        assertEquals(3, loaded.size());
+        assertEquals("Task 3", loaded.get(1).getDesc());
+    }
+
+    @Test
+    public void testDiscardedBatchIsNotPersisted() throws IOException, FridayException {
+        Path dataFile = Files.createTempDirectory("friday").resolve("duke.txt");
+        TaskList taskList = new TaskList();
+        Storage storage = new Storage(dataFile, taskList);
+        storage.setJournaled(true);
+        taskList.addTodo("Task 1");
+        storage.recordAdd(taskList.get(0));
+
+        storage.beginBatch();
+        taskList.addTodo("Task 2");
+        storage.recordAdd(taskList.get(1));
+        storage.beginBatch();
+        storage.recordMark(1);
+        storage.discardBatch(); // drops only the inner batch
+        storage.endBatch();
+
+        TaskList loaded = new TaskList();
+        new Storage(dataFile, loaded).load();
+        assertEquals(2, loaded.size());
+        assertFalse(loaded.get(0).checkDone());
+    }
+}
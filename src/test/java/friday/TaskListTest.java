@@ -1,5 +1,10 @@
 package friday;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -95,4 +100,311 @@ public class TaskListTest {
         taskList.add(task);
         assertEquals(task, taskList.get(0));
     }
+
+    @Test
+    public void testDrainDirtyTasks() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        taskList.addTodo("Task 2");
+        assertEquals(2, taskList.drainDirtyTasks().size());
+        assertTrue(taskList.drainDirtyTasks().isEmpty());
+
+        taskList.mark(2);
+        taskList.delete(1);
+        assertTrue(taskList.drainDirtyTasks().contains(taskList.get(0)));
+        assertEquals(1, taskList.drainRemovedTasks().size());
+        assertTrue(taskList.drainRemovedTasks().isEmpty());
+    }
+
+    @Test
+    public void testTagsSurviveDelete() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        taskList.addTodo("Task 2");
+        int id = taskList.get(1).getId();
+        taskList.tag(2, "Work");
+        taskList.delete(1);
+        assertEquals("[T][ ] Task 2 #work", taskList.getDisplayWithTags(0));
+        assertEquals(id, taskList.get(0).getId());
+    }
+
+    @Test
+    public void testTagWithDelimiterRejected() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        assertThrows(FridayException.class, () -> taskList.tag(1, "very urgent"));
+        assertThrows(FridayException.class, () -> taskList.tag(1, "#fun"));
+        assertThrows(FridayException.class, () -> taskList.tag(1, "a|b"));
+        assertTrue(taskList.get(0).getTags().isEmpty());
+    }
+
+    @Test
+    public void testUntagMissingTag() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        assertThrows(FridayException.class, () -> taskList.untag(1, "fun"));
+    }
+
+    @Test
+    public void testFilterByTags() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        taskList.addTodo("Task 2");
+        taskList.addTodo("Task 3");
+        taskList.tag(1, "work");
+        taskList.tag(2, "work");
+        taskList.tag(2, "urgent");
+        taskList.tag(3, "home");
+
+        assertEquals("Here are the tasks matching your tag filter:\n 2.[T][ ] Task 2 #work #urgent",
+                taskList.filterByTags(Parser.parseTagFilter("#work and #urgent")));
+        assertEquals("Here are the tasks matching your tag filter:\n 1.[T][ ] Task 1 #work",
+                taskList.filterByTags(Parser.parseTagFilter("#work not #urgent")));
+        assertEquals("Here are the tasks matching your tag filter:\n 1.[T][ ] Task 1 #work"
+                        + "\n 3.[T][ ] Task 3 #home",
+                taskList.filterByTags(Parser.parseTagFilter("#home or #work not #urgent")));
+
+        taskList.delete(1);
+        taskList.untag(1, "urgent");
+        assertEquals("Here are the tasks matching your tag filter:\n 1.[T][ ] Task 2 #work",
+                taskList.filterByTags(Parser.parseTagFilter("#work")));
+        assertEquals("No tasks match that tag filter.",
+                taskList.filterByTags(Parser.parseTagFilter("#urgent")));
+    }
+
+    @Test
+    public void testTagsAreInterned() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        taskList.addTodo("Task 2");
+        taskList.tag(1, "Shared");
+        taskList.tag(2, new String("shared"));
+        assertSame(taskList.get(0).getTags().iterator().next(), taskList.get(1).getTags().iterator().next());
+        assertArrayEquals(taskList.get(0).getTagCodes(), taskList.get(1).getTagCodes());
+        assertTrue(taskList.getTagManager().hasTag(taskList.get(1), "SHARED"));
+
+        taskList.untag(1, "shared");
+        assertTrue(taskList.get(0).getTags().isEmpty());
+        assertFalse(taskList.getTagManager().hasTag(taskList.get(0), "shared"));
+    }
+
+    @Test
+    public void testFindMultipleKeywords() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Buy milk");
+        taskList.addTodo("Read book");
+        taskList.addTodo("Buy bread");
+        taskList.addTodo("Go to the bakery");
+
+        assertEquals("Here are the matching tasks in your list:\n 1.[T][ ] Buy bread",
+                taskList.find("buy BREAD"));
+        assertEquals("Here are the matching tasks in your list:\n 1.[T][ ] Buy milk"
+                        + "\n 2.[T][ ] Read book",
+                taskList.find("milk or book"));
+        assertEquals("Here are the matching tasks in your list:\n 1.[T][ ] Go to the bakery",
+                taskList.find("to"));
+
+        taskList.delete(1);
+        assertEquals("No matching tasks found.", taskList.find("milk"));
+        assertEquals("Here are the matching tasks in your list:\n 1.[T][ ] Buy bread",
+                taskList.find("buy"));
+    }
+
+    @Test
+    public void testFindPrefixAndFuzzy() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Buy groceries");
+        taskList.addTodo("Group meeting");
+        taskList.addTodo("Grow plants");
+        taskList.addTodo("Plan the gro trip");
+
+        assertEquals("Here are the matching tasks in your list:\n 1.[T][ ] Plan the gro trip"
+                        + "\n 2.[T][ ] Buy groceries\n 3.[T][ ] Group meeting\n 4.[T][ ] Grow plants",
+                taskList.find("gro*"));
+        assertEquals("Here are the matching tasks in your list:\n 1.[T][ ] Group meeting",
+                taskList.find("~groop"));
+        assertEquals("Here are the matching tasks in your list:\n 1.[T][ ] Group meeting"
+                        + "\n 2.[T][ ] Grow plants\n 3.[T][ ] Plan the gro trip",
+                taskList.find("~grop"));
+        assertEquals("Here are the matching tasks in your list:\n 1.[T][ ] Buy groceries",
+                taskList.find("~grocries buy"));
+
+        taskList.delete(2);
+        assertEquals("No matching tasks found.", taskList.find("~groop"));
+    }
+
+    @Test
+    public void testFindDeadlines() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addDeadline("Report", LocalDate.of(2025, 10, 20));
+        taskList.addTodo("Read book");
+        taskList.addDeadline("Essay", LocalDate.of(2025, 10, 10));
+        taskList.addDeadline("Someday", null);
+        taskList.addDeadline("Quiz", LocalDate.of(2025, 10, 10));
+        taskList.mark(5);
+
+        assertEquals("Here are the matching deadlines in your list:\n 3.[D][ ] Essay (by: Oct 10 2025)"
+                        + "\n 5.[D][X] Quiz (by: Oct 10 2025)\n 1.[D][ ] Report (by: Oct 20 2025)",
+                taskList.findDeadlines(LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 31), false));
+        assertEquals("Here are the matching deadlines in your list:\n 3.[D][ ] Essay (by: Oct 10 2025)",
+                taskList.findDeadlines(null, LocalDate.of(2025, 10, 15), true));
+
+        taskList.delete(3);
+        assertEquals("Here are the matching deadlines in your list:\n 4.[D][X] Quiz (by: Oct 10 2025)",
+                taskList.findDeadlines(LocalDate.of(2025, 10, 10), LocalDate.of(2025, 10, 10), false));
+        assertEquals("No deadlines found.",
+                taskList.findDeadlines(LocalDate.of(2025, 11, 1), null, false));
+    }
+
+    @Test
+    public void testFindEventsAndConflicts() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addEvent("Standup", "2025-10-15 0900", "0915");
+        taskList.addEvent("Party", "10pm", "late");
+        taskList.addEvent("Workshop", "2025-10-15 0910", "2025-10-15 1200");
+        taskList.addEvent("Lunch", "2025-10-15 1200", "1300");
+        taskList.addEvent("Trip", "2025-10-14", "2025-10-16");
+
+        assertEquals("Here are the events in that period:\n 5.[E][ ] Trip (from: 2025-10-14 to: 2025-10-16)"
+                        + "\n 3.[E][ ] Workshop (from: 2025-10-15 0910 to: 2025-10-15 1200)",
+                taskList.findEvents(LocalDateTime.of(2025, 10, 15, 11, 0), LocalDateTime.of(2025, 10, 15, 11, 0)));
+        assertEquals("No events found.",
+                taskList.findEvents(LocalDateTime.of(2025, 10, 17, 0, 0), LocalDateTime.of(2025, 10, 18, 0, 0)));
+        assertEquals("These events clash with [E][ ] Lunch (from: 2025-10-15 1200 to: 1300):"
+                        + "\n 5.[E][ ] Trip (from: 2025-10-14 to: 2025-10-16)",
+                taskList.findConflicts(4));
+        assertThrows(FridayException.class, () -> taskList.findConflicts(2));
+
+        taskList.delete(5);
+        assertEquals("Here are the clashing events in your list:"
+                        + "\n 1.[E][ ] Standup (from: 2025-10-15 0900 to: 0915)"
+                        + "\n    clashes with 3.[E][ ] Workshop (from: 2025-10-15 0910 to: 2025-10-15 1200)",
+                taskList.findConflicts());
+    }
+
+    @Test
+    public void testConflictsCapped() throws FridayException {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 20; i++) {
+            taskList.addEvent("Meeting " + i, "2025-10-15 0900", "1000"); // 190 clashing pairs
+        }
+
+        String conflicts = taskList.findConflicts();
+        assertEquals(TaskList.MAX_REPORTED_CLASHES, conflicts.split("clashes with", -1).length - 1);
+        assertTrue(conflicts.endsWith(
+                "\nThere are more clashes. Use conflicts <task number> to see those of one event."));
+    }
+
+    @Test
+    public void testBulkChanges() throws FridayException {
+        TaskList taskList = new TaskList();
+        for (int i = 1; i <= 6; i++) {
+            taskList.addTodo("Task " + i);
+        }
+        taskList.markAll(new int[] {1, 2, 3});
+        assertTrue(taskList.get(2).checkDone());
+        assertThrows(FridayException.class, () -> taskList.unmarkAll(new int[] {1, 7}));
+        assertTrue(taskList.get(0).checkDone(), "A failed bulk change should change nothing");
+
+        taskList.tagAll(new int[] {2, 5}, "urgent");
+        assertArrayEquals(new int[] {5}, taskList.untagAll(new int[] {4, 5}, "urgent"));
+
+        java.util.List<Task> deleted = taskList.deleteAll(new int[] {1, 3, 4});
+        assertEquals("Task 1", deleted.get(0).getDesc());
+        assertEquals("Task 4", deleted.get(2).getDesc());
+        assertEquals(3, taskList.size());
+        assertEquals("[T][X] Task 2 #urgent", taskList.getDisplayWithTags(0));
+        assertEquals("Task 6", taskList.get(2).getDesc());
+    }
+
+    @Test
+    public void testQueryDrivenChanges() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        taskList.addDeadline("Task 2", LocalDate.of(2026, 10, 1));
+        taskList.addTodo("Task 3");
+        taskList.markAll(new int[] {1, 3});
+
+        LocalDate today = LocalDate.of(2026, 10, 18);
+        assertEquals("Here are the matching tasks in your list:\n 2.[D][ ] Task 2 (by: Oct 01 2026)",
+                taskList.list(Parser.parseQuery("where undone", today)));
+        taskList.deleteAll(taskList.findMatching(Parser.parseQuery("where done", today)));
+        assertEquals(1, taskList.size());
+        assertEquals("No tasks match that query.", taskList.list(Parser.parseQuery("where todo", today)));
+    }
+
+    @Test
+    public void testRollbackRestoresList() throws FridayException {
+        TaskList taskList = new TaskList();
+        for (int i = 1; i <= 100; i++) {
+            taskList.addTodo("Task " + i);
+        }
+        taskList.tag(1, "work");
+        String before = taskList.list();
+
+        taskList.beginTransaction();
+        taskList.markAll(new int[] {1, 2});
+        taskList.untag(1, "work");
+        taskList.tag(3, "home");
+        taskList.deleteAll(Parser.parseIndices("1-80"));
+        taskList.addTodo("Task 101");
+        assertEquals(21, taskList.size());
+        assertEquals(85, taskList.rollbackTransaction());
+
+        assertEquals(before, taskList.list());
+        assertEquals("Here are the tasks matching your tag filter:\n 1.[T][ ] Task 1 #work",
+                taskList.filterByTags(Parser.parseTagFilter("#work or #home")));
+        assertEquals("Here are the matching tasks in your list:\n 1.[T][ ] Task 50",
+                taskList.find("task 50"));
+        assertFalse(taskList.isInTransaction());
+    }
+
+    @Test
+    public void testCommitKeepsChanges() throws FridayException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Task 1");
+        taskList.beginTransaction();
+        taskList.addTodo("Task 2");
+        taskList.delete(1);
+        assertEquals(2, taskList.commitTransaction());
+
+        assertEquals(1, taskList.size());
+        assertEquals("Task 2", taskList.get(0).getDesc());
+    }
+
+    @Test
+    public void testPagedList() throws FridayException {
+        TaskList taskList = new TaskList();
+        for (int i = 1; i <= 10; i++) {
+            taskList.addTodo("Task " + i);
+        }
+        taskList.deleteAll(new int[] {2, 3});
+
+        assertEquals("Here are tasks 3 to 4 of 8 in your list:\n 3.[T][ ] Task 5\n 4.[T][ ] Task 6",
+                taskList.list(2, 2));
+        assertEquals(2, taskList.getPage(6, 5).size());
+        assertEquals("Task 10", taskList.getPage(6, 5).get(1).getDesc());
+        assertEquals("There are no tasks there.", taskList.list(8, 5));
+    }
+
+    @Test
+    public void testStreamedListingsMatchStrings() throws FridayException, IOException {
+        TaskList taskList = new TaskList();
+        for (int i = 1; i <= 5; i++) {
+            taskList.addTodo("Task " + i);
+        }
+        taskList.tag(2, "work");
+
+        StringWriter list = new StringWriter();
+        taskList.list(list);
+        assertEquals(taskList.list(), list.toString());
+
+        StringWriter found = new StringWriter();
+        taskList.find("task 2", found);
+        assertEquals("Here are the matching tasks in your list:\n 1.[T][ ] Task 2 #work", found.toString());
+
+        StringWriter matched = new StringWriter();
+        taskList.list(Parser.parseQuery("where #work", LocalDate.of(2026, 10, 18)), matched);
+        assertEquals("Here are the matching tasks in your list:\n 2.[T][ ] Task 2 #work", matched.toString());
+    }
 }
@@ -0,0 +1,72 @@
+package friday;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskStoreTest {
+
+    @Test
+    public void testPositionsSkipTombstones() {
+        TaskStore store = new TaskStore();
+        for (int id = 0; id < 5; id++) {
+            store.append(new ToDo("Task " + id), id * 10);
+        }
+        store.remove(store.slotAt(1));
+        store.remove(store.slotAt(0));
+
+        assertEquals(3, store.size());
+        assertEquals("Task 2", store.getTask(store.slotAt(0)).getDesc());
+        assertEquals(2, store.positionOf(store.slotOfId(40)));
+        assertEquals(-1, store.slotOfId(10));
+    }
+
+    @Test
+    public void testMatchesListAcrossCompactions() {
+        TaskStore store = new TaskStore();
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(42);
+        int nextId = 0;
+        for (int step = 0; step < 20000; step++) {
+            if (expected.isEmpty() || random.nextInt(5) < 3) {
+                store.append(new ToDo("Task"), nextId);
+                expected.add(nextId++);
+            } else {
+                int position = random.nextInt(expected.size());
+                store.remove(store.slotAt(position));
+                expected.remove(position);
+            }
+        }
+
+        assertEquals(expected.size(), store.size());
+        for (int position = 0; position < expected.size(); position++) {
+            int slot = store.slotAt(position);
+            assertEquals((int) expected.get(position), store.getId(slot));
+            assertEquals(position, store.positionOf(store.slotOfId(expected.get(position))));
+        }
+    }
+
+    @Test
+    public void testReviveWhileCompactionSuspended() {
+        TaskStore store = new TaskStore();
+        for (int id = 0; id < 200; id++) {
+            store.append(new ToDo("Task " + id), id);
+        }
+        store.setCompactionSuspended(true);
+        int slot = store.slotAt(10);
+        for (int i = 0; i < 150; i++) {
+            store.remove(store.slotAt(0));
+        }
+        assertEquals(-1, store.slotOfId(10));
+
+        store.revive(slot, new ToDo("Task 10"), TaskStore.NOT_LAZY);
+        assertEquals(51, store.size());
+        assertEquals(0, store.positionOf(store.slotOfId(10)));
+        store.setCompactionSuspended(false);
+        assertEquals(10, store.getId(store.slotAt(0)));
+        assertEquals(150, store.getId(store.slotAt(1)));
+    }
+}